@@ -0,0 +1,113 @@
+package com.rentconnect.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rentconnect.event.ListingChangedEvent;
+import com.rentconnect.model.Rental;
+import com.rentconnect.model.RentalStatus;
+import com.rentconnect.repository.RentalRepository;
+import com.rentconnect.repository.projection.BookingInterval;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Per-listing interval index of the rentals that block a date range. Calendars are loaded
+// from the database on first use and kept current by this instance's rental write paths.
+// Writes on other instances are not seen until the calendar expires, so a conflict found in
+// the cache is re-checked against a fresh load before rejecting; the rentals_no_overlap
+// exclusion constraint remains the durable guarantee against a stale "free".
+@Service
+public class AvailabilityService {
+    public static final Set<RentalStatus> BLOCKING_STATUSES =
+            EnumSet.of(RentalStatus.PENDING, RentalStatus.CONFIRMED, RentalStatus.ACTIVE);
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private BookedDaysIndex bookedDaysIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rentconnect.availability.calendarCacheMaxSize:10000}")
+    private long maximumSize;
+
+    @Value("${rentconnect.availability.calendarCacheTtl:5m}")
+    private Duration ttl;
+
+    private Cache<Long, ListingCalendar> calendars;
+
+    @PostConstruct
+    void init() {
+        calendars = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, calendars, "listingCalendars");
+    }
+
+    public boolean isAvailable(Long listingId, LocalDate from, LocalDate to) {
+        return isAvailable(listingId, from, to, null);
+    }
+
+    public boolean isAvailable(Long listingId, LocalDate from, LocalDate to, Long ignoredRentalId) {
+        if (calendar(listingId).isFree(from, to, ignoredRentalId)) {
+            return true;
+        }
+        // The blocking rental may have been cancelled on another instance
+        calendars.invalidate(listingId);
+        return calendar(listingId).isFree(from, to, ignoredRentalId);
+    }
+
+    public List<Booking> getBookings(Long listingId, LocalDate from, LocalDate to) {
+        return calendar(listingId).between(from, to);
+    }
+
+    // Call after a rental has been saved or its status changed
+    public void rentalChanged(Rental rental) {
+        ListingCalendar calendar = calendar(rental.getListing().getId());
+        if (BLOCKING_STATUSES.contains(rental.getStatus())) {
+            calendar.put(new Booking(rental.getId(), rental.getStartDate(), rental.getEndDate(), rental.getStatus()));
+        } else {
+            calendar.remove(rental.getId());
+        }
+        bookedDaysIndex.update(rental.getListing().getId(), calendar.between(LocalDate.now(), LocalDate.MAX));
+    }
+
+    public Set<Long> bookedListingIds(LocalDate from, LocalDate to) {
+        return bookedDaysIndex.bookedListingIds(from, to);
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.getType() == ListingChangedEvent.Type.DELETED) {
+            calendars.invalidate(event.getListing().getId());
+            bookedDaysIndex.remove(event.getListing().getId());
+        }
+    }
+
+    private ListingCalendar calendar(Long listingId) {
+        return calendars.get(listingId, this::load);
+    }
+
+    private ListingCalendar load(Long listingId) {
+        ListingCalendar calendar = new ListingCalendar();
+        List<BookingInterval> intervals = rentalRepository.findBookings(listingId, BLOCKING_STATUSES, LocalDate.now());
+        for (BookingInterval interval : intervals) {
+            calendar.put(new Booking(interval.getId(), interval.getStartDate(), interval.getEndDate(), interval.getStatus()));
+        }
+        return calendar;
+    }
+}
@@ -0,0 +1,188 @@
+package com.rentconnect.availability;
+
+import com.rentconnect.repository.RentalRepository;
+import com.rentconnect.repository.projection.BookingInterval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// One bit per booked day for every listing, covering HORIZON_DAYS from the snapshot origin.
+// Answers "which listings are booked between X and Y" without touching the database; ranges
+// outside the window fall back to a query. Bitsets are immutable once published. Local writes
+// update the index directly; rentals written by other instances are picked up by sync().
+@Component
+public class BookedDaysIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookedDaysIndex.class);
+
+    private static final int HORIZON_DAYS = 550;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Value("${rentconnect.availability.bookedDaysSyncOverlap:5m}")
+    private Duration syncOverlap;
+
+    private volatile Snapshot snapshot = new Snapshot(LocalDate.now());
+
+    // Listings changed while a rebuild is streaming; refreshed once the new snapshot is live
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuilding;
+
+    // Start of the last rebuild or sync; null until the first rebuild has finished
+    private volatile LocalDateTime lastSyncAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 5 0 * * *")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        Snapshot next = new Snapshot(LocalDate.now());
+        Map<Long, BitSet> building = new HashMap<>();
+        try (Stream<BookingInterval> stream = rentalRepository.streamBookings(
+                AvailabilityService.BLOCKING_STATUSES, next.origin)) {
+            stream.forEach(interval -> next.mark(
+                    building.computeIfAbsent(interval.getListingId(), id -> new BitSet(HORIZON_DAYS)),
+                    interval.getStartDate(), interval.getEndDate()));
+        }
+        next.bookedDays.putAll(building);
+
+        snapshot = next;
+        lastSyncAt = startedAt;
+        rebuilding = false;
+        for (Long listingId : changedDuringRebuild) {
+            refresh(listingId);
+        }
+        logger.info("Booked-days index rebuilt for {} listings from {}", building.size(), next.origin);
+    }
+
+    // Re-reads the listings whose rentals changed since the last pass, bounding how long another
+    // instance's bookings and cancellations go unseen. The overlap re-reads rows that committed
+    // late or were stamped by an instance whose clock lags.
+    @Scheduled(fixedDelayString = "${rentconnect.availability.bookedDaysSyncMs:60000}", initialDelay = 60000)
+    @Transactional(readOnly = true)
+    public void sync() {
+        LocalDateTime since = lastSyncAt;
+        if (since == null || rebuilding) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> changed = rentalRepository.findListingIdsUpdatedSince(since.minus(syncOverlap));
+        if (!changed.isEmpty()) {
+            Map<Long, List<Booking>> bookings = new HashMap<>();
+            for (Long listingId : changed) {
+                bookings.put(listingId, new ArrayList<>());
+            }
+            for (BookingInterval interval : rentalRepository.findBookingsByListingIdIn(
+                    changed, AvailabilityService.BLOCKING_STATUSES, snapshot.origin)) {
+                bookings.get(interval.getListingId()).add(toBooking(interval));
+            }
+            bookings.forEach(this::update);
+        }
+        lastSyncAt = now;
+        logger.debug("Booked-days index synced {} listings changed since {}", changed.size(), since);
+    }
+
+    // Replaces a listing's bitset with the given blocking bookings
+    public void update(Long listingId, Collection<Booking> bookings) {
+        if (rebuilding) {
+            changedDuringRebuild.add(listingId);
+        }
+        Snapshot current = snapshot;
+        BitSet bits = new BitSet(HORIZON_DAYS);
+        for (Booking booking : bookings) {
+            current.mark(bits, booking.getStartDate(), booking.getEndDate());
+        }
+        if (bits.isEmpty()) {
+            current.bookedDays.remove(listingId);
+        } else {
+            current.bookedDays.put(listingId, bits);
+        }
+    }
+
+    public void remove(Long listingId) {
+        snapshot.bookedDays.remove(listingId);
+    }
+
+    public Set<Long> bookedListingIds(LocalDate from, LocalDate to) {
+        Snapshot current = snapshot;
+        LocalDate windowEnd = current.origin.plusDays(HORIZON_DAYS - 1);
+        Set<Long> booked = new HashSet<>();
+
+        LocalDate inFrom = from.isBefore(current.origin) ? current.origin : from;
+        LocalDate inTo = to.isAfter(windowEnd) ? windowEnd : to;
+        if (!inFrom.isAfter(inTo)) {
+            int fromIndex = current.index(inFrom);
+            int toIndex = current.index(inTo);
+            current.bookedDays.forEach((listingId, bits) -> {
+                int next = bits.nextSetBit(fromIndex);
+                if (next >= 0 && next <= toIndex) {
+                    booked.add(listingId);
+                }
+            });
+        }
+
+        if (from.isBefore(current.origin)) {
+            LocalDate before = current.origin.minusDays(1);
+            booked.addAll(rentalRepository.findBookedListingIds(
+                    AvailabilityService.BLOCKING_STATUSES, from, to.isBefore(before) ? to : before));
+        }
+        if (to.isAfter(windowEnd)) {
+            LocalDate after = windowEnd.plusDays(1);
+            booked.addAll(rentalRepository.findBookedListingIds(
+                    AvailabilityService.BLOCKING_STATUSES, from.isAfter(after) ? from : after, to));
+        }
+        return booked;
+    }
+
+    private void refresh(Long listingId) {
+        List<Booking> bookings = new ArrayList<>();
+        for (BookingInterval interval : rentalRepository.findBookings(
+                listingId, AvailabilityService.BLOCKING_STATUSES, snapshot.origin)) {
+            bookings.add(toBooking(interval));
+        }
+        update(listingId, bookings);
+    }
+
+    private static Booking toBooking(BookingInterval interval) {
+        return new Booking(interval.getId(), interval.getStartDate(), interval.getEndDate(), interval.getStatus());
+    }
+
+    private static class Snapshot {
+        final LocalDate origin;
+        final Map<Long, BitSet> bookedDays = new ConcurrentHashMap<>();
+
+        Snapshot(LocalDate origin) {
+            this.origin = origin;
+        }
+
+        int index(LocalDate day) {
+            return (int) ChronoUnit.DAYS.between(origin, day);
+        }
+
+        void mark(BitSet bits, LocalDate start, LocalDate end) {
+            int from = Math.max(0, index(start));
+            int to = Math.min(HORIZON_DAYS - 1, index(end));
+            if (from <= to) {
+                bits.set(from, to + 1);
+            }
+        }
+    }
+}
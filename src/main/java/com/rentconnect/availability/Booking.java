@@ -0,0 +1,20 @@
+package com.rentconnect.availability;
+
+import com.rentconnect.model.RentalStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class Booking {
+    private final Long rentalId;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final RentalStatus status;
+
+    public boolean overlaps(LocalDate from, LocalDate to) {
+        return !startDate.isAfter(to) && !endDate.isBefore(from);
+    }
+}
@@ -0,0 +1,114 @@
+package com.rentconnect.availability;
+
+import com.rentconnect.exception.BookingConflictException;
+import com.rentconnect.model.Rental;
+import com.rentconnect.model.RentalStatus;
+import com.rentconnect.repository.RentalRepository;
+import com.rentconnect.service.AggregateUpdateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serializes check-then-write for one listing at a time. Listings hash onto a fixed set of
+// lock stripes, so bookings for different listings proceed in parallel; across instances
+// the rentals_no_overlap constraint rejects whichever insert loses the race.
+@Service
+public class BookingService {
+    private static final int STRIPES = 1024;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private AggregateUpdateService aggregateUpdateService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public BookingService() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Rental book(Rental rental) {
+        Long listingId = rental.getListing().getId();
+        Lock lock = lockFor(listingId);
+        lock.lock();
+        try {
+            if (!availabilityService.isAvailable(listingId, rental.getStartDate(), rental.getEndDate())) {
+                throw new BookingConflictException("Listing is not available for the requested dates");
+            }
+
+            Rental savedRental;
+            try {
+                savedRental = rentalRepository.save(rental);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance booked the same dates first
+                throw new BookingConflictException("Listing is not available for the requested dates");
+            }
+            availabilityService.rentalChanged(savedRental);
+            return savedRental;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns false when the rental's status was changed concurrently. The status and the listing's
+    // completed-rental aggregates commit together, before the lock is released.
+    public boolean changeStatus(Rental rental, RentalStatus newStatus, LocalDateTime now) {
+        Long listingId = rental.getListing().getId();
+        RentalStatus currentStatus = rental.getStatus();
+        Lock lock = lockFor(listingId);
+        lock.lock();
+        try {
+            // Re-activating a released booking must not double-book the listing
+            if (AvailabilityService.BLOCKING_STATUSES.contains(newStatus)
+                    && !AvailabilityService.BLOCKING_STATUSES.contains(currentStatus)
+                    && !availabilityService.isAvailable(listingId, rental.getStartDate(), rental.getEndDate(), rental.getId())) {
+                throw new BookingConflictException("Listing is no longer available for these dates");
+            }
+
+            Boolean changed;
+            try {
+                changed = transactionTemplate.execute(status -> {
+                    if (rentalRepository.updateStatus(rental.getId(), currentStatus, newStatus, now) == 0) {
+                        return false;
+                    }
+                    if (newStatus == RentalStatus.COMPLETED) {
+                        aggregateUpdateService.rentalCompleted(listingId, rental.getTotalPrice());
+                    } else if (currentStatus == RentalStatus.COMPLETED) {
+                        aggregateUpdateService.rentalUncompleted(listingId, rental.getTotalPrice());
+                    }
+                    return true;
+                });
+            } catch (DataIntegrityViolationException e) {
+                throw new BookingConflictException("Listing is no longer available for these dates");
+            }
+            if (!Boolean.TRUE.equals(changed)) {
+                return false;
+            }
+
+            rental.setStatus(newStatus);
+            rental.setUpdatedAt(now);
+            availabilityService.rentalChanged(rental);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock lockFor(Long listingId) {
+        return locks[Math.floorMod(Long.hashCode(listingId) * 0x9E3779B9, STRIPES)];
+    }
+}
@@ -0,0 +1,70 @@
+package com.rentconnect.availability;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Blocking bookings of one listing ordered by start date. While bookings are disjoint
+// (the normal case, enforced by the rentals_no_overlap constraint) an overlap check only
+// has to look at the booking with the latest start on or before the requested end.
+class ListingCalendar {
+    private static final Comparator<Booking> ORDER = Comparator
+            .comparing(Booking::getStartDate)
+            .thenComparing(Booking::getRentalId);
+
+    private final NavigableSet<Booking> bookings = new TreeSet<>(ORDER);
+
+    private final Map<Long, Booking> byRentalId = new HashMap<>();
+
+    // Set when legacy data contains overlapping bookings; checks then fall back to a scan
+    private boolean disjoint = true;
+
+    synchronized void put(Booking booking) {
+        remove(booking.getRentalId());
+        if (disjoint && findOverlap(booking.getStartDate(), booking.getEndDate(), null) != null) {
+            disjoint = false;
+        }
+        bookings.add(booking);
+        byRentalId.put(booking.getRentalId(), booking);
+    }
+
+    synchronized void remove(Long rentalId) {
+        Booking existing = byRentalId.remove(rentalId);
+        if (existing != null) {
+            bookings.remove(existing);
+        }
+    }
+
+    synchronized boolean isFree(LocalDate from, LocalDate to, Long ignoredRentalId) {
+        return findOverlap(from, to, ignoredRentalId) == null;
+    }
+
+    synchronized List<Booking> between(LocalDate from, LocalDate to) {
+        List<Booking> result = new ArrayList<>();
+        for (Booking booking : headUpTo(to)) {
+            if (booking.overlaps(from, to)) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    private Booking findOverlap(LocalDate from, LocalDate to, Long ignoredRentalId) {
+        for (Booking booking : headUpTo(to).descendingSet()) {
+            if (booking.getRentalId().equals(ignoredRentalId)) {
+                continue;
+            }
+            if (!booking.getEndDate().isBefore(from)) {
+                return booking;
+            }
+            if (disjoint) {
+                // Disjoint bookings end in start order, so nothing earlier can reach "from"
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private NavigableSet<Booking> headUpTo(LocalDate to) {
+        return bookings.headSet(new Booking(Long.MAX_VALUE, to, to, null), true);
+    }
+}
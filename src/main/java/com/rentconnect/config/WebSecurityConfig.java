@@ -4,8 +4,13 @@ import com.rentconnect.security.jwt.AuthEntryPointJwt;
 import com.rentconnect.security.jwt.AuthTokenFilter;
 import com.rentconnect.security.oauth2.CustomOAuth2UserService;
 import com.rentconnect.security.oauth2.OAuth2AuthenticationSuccessHandler;
+import com.rentconnect.security.ratelimit.RateLimitFilter;
+import com.rentconnect.security.services.TimedPasswordEncoder;
 import com.rentconnect.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -41,17 +46,38 @@ public class WebSecurityConfig {
     @Autowired
     private OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Raising this rehashes each stored password on its owner's next successful login
+    @Value("${rentconnect.auth.bcryptStrength:10}")
+    private int bcryptStrength;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
     }
 
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter();
+    }
+
+    // Only run inside the security chain (after AuthTokenFilter), not as a plain servlet filter as well
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         
         return authProvider;
     }
@@ -63,7 +89,7 @@ public class WebSecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), meterRegistry);
     }
 
     @Bean
@@ -89,6 +115,7 @@ public class WebSecurityConfig {
 
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter(), AuthTokenFilter.class);
 
         return http.build();
     }
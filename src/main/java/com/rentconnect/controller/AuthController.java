@@ -4,6 +4,7 @@ import com.rentconnect.dto.request.LoginRequest;
 import com.rentconnect.dto.request.SignupRequest;
 import com.rentconnect.dto.response.JwtResponse;
 import com.rentconnect.dto.response.MessageResponse;
+import com.rentconnect.exception.HashingCapacityExceededException;
 import com.rentconnect.model.AuthProvider;
 import com.rentconnect.model.ERole;
 import com.rentconnect.model.Role;
@@ -11,13 +12,20 @@ import com.rentconnect.model.User;
 import com.rentconnect.repository.RoleRepository;
 import com.rentconnect.repository.UserRepository;
 import com.rentconnect.security.jwt.JwtUtils;
+import com.rentconnect.security.jwt.TokenRevocationService;
+import com.rentconnect.security.services.PasswordHashingService;
 import com.rentconnect.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +35,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -48,59 +57,131 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    PasswordHashingService passwordHashingService;
+
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
-        
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        List<String> roles = userDetails.getAuthorities().stream()
-                .map(item -> item.getAuthority())
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(new JwtResponse(
-                jwt,
-                userDetails.getId(),
-                userDetails.getEmail(),
-                userDetails.getFirstName(),
-                userDetails.getLastName(),
-                userDetails.getPicture(),
-                roles));
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        // BCrypt verification runs on the hashing pool; a failed login surfaces as AuthenticationException
+        // on the async dispatch and is turned into 401 by the entry point as before
+        CompletableFuture<Authentication> authentication;
+        try {
+            authentication = passwordHashingService.submit("signin", () -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())));
+        } catch (HashingCapacityExceededException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
+        }
+
+        return authentication.thenApply(auth -> {
+            String jwt = jwtUtils.generateJwtToken(auth);
+
+            UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
+            List<String> roles = userDetails.getAuthorities().stream()
+                    .map(item -> item.getAuthority())
+                    .collect(Collectors.toList());
+
+            return ResponseEntity.ok(new JwtResponse(
+                    jwt,
+                    userDetails.getId(),
+                    userDetails.getEmail(),
+                    userDetails.getFirstName(),
+                    userDetails.getLastName(),
+                    userDetails.getPicture(),
+                    roles));
+        });
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity
+            return CompletableFuture.completedFuture(ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: Email is already in use!"));
+                    .body(new MessageResponse("Error: Email is already in use!")));
         }
 
-        // Create new user's account
-        User user = new User(
-                signUpRequest.getEmail(),
-                encoder.encode(signUpRequest.getPassword()),
-                signUpRequest.getFirstName(),
-                signUpRequest.getLastName());
-        
-        // Set default values for new users
-        user.setMemberSince(LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM yyyy")));
-        user.setResponseTime("Within a few hours");
-        user.setRating(0.0);
-        user.setReviewsCount(0);
-
-        Set<Role> roles = new HashSet<>();
-        Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-        roles.add(userRole);
-        user.setRoles(roles);
-        
-        userRepository.save(user);
-
-        return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+        CompletableFuture<String> encodedPassword;
+        try {
+            encodedPassword = passwordHashingService.submit("signup", () -> encoder.encode(signUpRequest.getPassword()));
+        } catch (HashingCapacityExceededException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
+        }
+
+        return encodedPassword.thenApply(password -> {
+            // Create new user's account
+            User user = new User(
+                    signUpRequest.getEmail(),
+                    password,
+                    signUpRequest.getFirstName(),
+                    signUpRequest.getLastName());
+
+            // Set default values for new users
+            user.setMemberSince(LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM yyyy")));
+            user.setResponseTime("Within a few hours");
+            user.setRating(0.0);
+            user.setRatingSum(0L);
+            user.setReviewsCount(0);
+            user.setUnreadMessages(0);
+
+            Set<Role> roles = new HashSet<>();
+            Role userRole = roleRepository.findByName(ERole.ROLE_USER)
+                    .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+            roles.add(userRole);
+            user.setRoles(roles);
+
+            userRepository.save(user);
+
+            return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+        });
     }
-}
 
+    private ResponseEntity<?> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse("Error: Too many sign-in attempts, please retry shortly"));
+    }
+
+    @PostMapping("/logout")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> logout(HttpServletRequest request) {
+        String jwt = jwtUtils.parseJwt(request);
+        Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+        if (claims == null) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: No token to revoke!"));
+        }
+
+        if (claims.getId() != null) {
+            tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+        }
+
+        // Tokens issued before jti existed can only be revoked together
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        tokenRevocationService.revokeAllForUser(userDetails.getId());
+        return ResponseEntity.ok(new MessageResponse("Logged out from all sessions!"));
+    }
+
+    @PostMapping("/logout-all")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> logoutAll() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        tokenRevocationService.revokeAllForUser(userDetails.getId());
+        return ResponseEntity.ok(new MessageResponse("Logged out from all sessions!"));
+    }
+
+    @DeleteMapping("/tokens/{jti}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> revokeToken(@PathVariable String jti) {
+        tokenRevocationService.revokeToken(jti, null);
+        return ResponseEntity.ok(new MessageResponse("Token revoked successfully!"));
+    }
+
+    @DeleteMapping("/users/{userId}/tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> revokeUserTokens(@PathVariable Long userId) {
+        tokenRevocationService.revokeAllForUser(userId);
+        return ResponseEntity.ok(new MessageResponse("All tokens of the user revoked successfully!"));
+    }
+}
@@ -1,52 +1,131 @@
 package com.rentconnect.controller;
 
+import com.rentconnect.availability.AvailabilityService;
+import com.rentconnect.availability.Booking;
+import com.rentconnect.dto.response.BulkImportResponse;
 import com.rentconnect.dto.response.MessageResponse;
+import com.rentconnect.exception.InvalidDateRangeException;
+import com.rentconnect.export.NdjsonExporter;
+import com.rentconnect.event.ListingChangedEvent;
 import com.rentconnect.model.Listing;
 import com.rentconnect.model.User;
+import com.rentconnect.pagination.CursorPagination;
 import com.rentconnect.repository.ListingRepository;
-import com.rentconnect.repository.UserRepository;
+import com.rentconnect.repository.projection.ListingCard;
+import com.rentconnect.repository.projection.ListingRef;
+import com.rentconnect.repository.projection.ListingVersion;
+import com.rentconnect.search.ListingSearchEngine;
 import com.rentconnect.security.services.UserDetailsImpl;
+import com.rentconnect.service.BulkListingImportService;
+import com.rentconnect.service.FeaturedListingsCache;
+import com.rentconnect.service.ListingCardService;
+import com.rentconnect.service.ListingSlugService;
+import com.rentconnect.service.ResourceAccessService;
+import com.rentconnect.service.ResourceAccessService.Access;
+import com.rentconnect.web.CurrentUser;
+import com.rentconnect.web.EntityTags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/listings")
 public class ListingController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     @Autowired
     private ListingRepository listingRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ListingSearchEngine listingSearchEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CursorPagination cursorPagination;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private ListingCardService listingCardService;
+
+    @Autowired
+    private FeaturedListingsCache featuredListingsCache;
+
+    @Autowired
+    private ListingSlugService listingSlugService;
+
+    @Autowired
+    private BulkListingImportService bulkListingImportService;
+
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private ResourceAccessService resourceAccessService;
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllListings(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        Sort sort = Sort.by(sortDirection, sortBy);
+        Long[] bookedIds = bookedListingIds(startDate, endDate);
+
+        // Cursor mode: seek past the "after" token and skip the COUNT query
+        if (after != null) {
+            ScrollPosition position = cursorPagination.decode(after, sort, Listing.class);
+            Window<ListingRef> window = bookedIds.length == 0
+                    ? listingRepository.findByIsActiveTrue(position, sort, Limit.of(size))
+                    : listingRepository.findActiveExcluding(bookedIds, position, sort, Limit.of(size));
+            return new ResponseEntity<>(cursorResponse(window), HttpStatus.OK);
+        }
+
+        Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Listing> listingsPage = listingRepository.findByIsActiveTrue(pageable);
+        Page<ListingCard> listingsPage = bookedIds.length == 0
+                ? listingRepository.findActiveCards(pageable)
+                : listingRepository.findActiveCardsExcluding(bookedIds, pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("listings", listingsPage.getContent());
+        response.put("listings", listingCardService.toResponses(listingsPage.getContent()));
         response.put("currentPage", listingsPage.getNumber());
         response.put("totalItems", listingsPage.getTotalElements());
         response.put("totalPages", listingsPage.getTotalPages());
@@ -54,10 +133,9 @@ public class ListingController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    @GetMapping("/featured")
-    public ResponseEntity<List<Listing>> getFeaturedListings() {
-        List<Listing> featuredListings = listingRepository.findTop8ByIsActiveTrueOrderByCreatedAtDesc();
-        return new ResponseEntity<>(featuredListings, HttpStatus.OK);
+    @GetMapping(value = "/featured", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getFeaturedListings() {
+        return new ResponseEntity<>(featuredListingsCache.get(), HttpStatus.OK);
     }
 
     @GetMapping("/category/{category}")
@@ -66,15 +144,32 @@ public class ListingController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        Sort sort = Sort.by(sortDirection, sortBy);
+        Long[] bookedIds = bookedListingIds(startDate, endDate);
+
+        if (after != null) {
+            ScrollPosition position = cursorPagination.decode(after, sort, Listing.class);
+            Window<ListingRef> window = bookedIds.length == 0
+                    ? listingRepository.findByCategoryAndIsActiveTrue(category, position, sort, Limit.of(size))
+                    : listingRepository.findActiveByCategoryExcluding(
+                            category, bookedIds, position, sort, Limit.of(size));
+            return new ResponseEntity<>(cursorResponse(window), HttpStatus.OK);
+        }
+
+        Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Listing> listingsPage = listingRepository.findByCategoryAndIsActiveTrue(category, pageable);
+        Page<ListingCard> listingsPage = bookedIds.length == 0
+                ? listingRepository.findActiveCardsByCategory(category, pageable)
+                : listingRepository.findActiveCardsByCategoryExcluding(category, bookedIds, pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("listings", listingsPage.getContent());
+        response.put("listings", listingCardService.toResponses(listingsPage.getContent()));
         response.put("currentPage", listingsPage.getNumber());
         response.put("totalItems", listingsPage.getTotalElements());
         response.put("totalPages", listingsPage.getTotalPages());
@@ -89,10 +184,10 @@ public class ListingController {
             @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> listingsPage = listingRepository.search(query, pageable);
+        Page<Long> listingsPage = listingSearchEngine.search(query, pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("listings", listingsPage.getContent());
+        response.put("listings", listingCardService.findByIds(listingsPage.getContent()));
         response.put("currentPage", listingsPage.getNumber());
         response.put("totalItems", listingsPage.getTotalElements());
         response.put("totalPages", listingsPage.getTotalPages());
@@ -100,68 +195,122 @@ public class ListingController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportListings(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return ndjsonExporter.export("listings.ndjson", acceptEncoding, listingRepository::streamActiveForExport);
+    }
+
     @GetMapping("/{slug}")
-    public ResponseEntity<?> getListingBySlug(@PathVariable String slug) {
+    public ResponseEntity<?> getListingBySlug(@PathVariable String slug, WebRequest request) {
+        // Answer revalidations from the timestamps alone, without loading the listing graph
+        Optional<ListingVersion> version = listingRepository.findVersionBySlug(slug);
+        if (version.isPresent()) {
+            String etag = EntityTags.etag(version.get().getId(),
+                    version.get().getUpdatedAt(), version.get().getOwnerUpdatedAt());
+            if (etag != null && request.checkNotModified(etag,
+                    EntityTags.lastModified(version.get().getUpdatedAt(), version.get().getOwnerUpdatedAt()))) {
+                return null;
+            }
+        }
+
         Optional<Listing> listing = listingRepository.findBySlug(slug);
         if (listing.isPresent()) {
-            return new ResponseEntity<>(listing.get(), HttpStatus.OK);
+            Listing found = listing.get();
+            LocalDateTime ownerUpdatedAt = found.getOwner().getUpdatedAt();
+            String etag = EntityTags.etag(found.getId(), found.getUpdatedAt(), ownerUpdatedAt);
+            if (etag == null) {
+                return new ResponseEntity<>(found, HttpStatus.OK);
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .lastModified(EntityTags.lastModified(found.getUpdatedAt(), ownerUpdatedAt))
+                    .body(found);
         } else {
             return new ResponseEntity<>(new MessageResponse("Listing not found"), HttpStatus.NOT_FOUND);
         }
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getListingAvailability(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        LocalDate rangeStart = from != null ? from : LocalDate.now();
+        LocalDate rangeEnd = to != null ? to : rangeStart.plusDays(90);
+        if (rangeEnd.isBefore(rangeStart) || rangeEnd.isAfter(rangeStart.plusYears(2))) {
+            return new ResponseEntity<>(new MessageResponse("Invalid date range"), HttpStatus.BAD_REQUEST);
+        }
+
+        if (!listingRepository.existsById(id)) {
+            return new ResponseEntity<>(new MessageResponse("Listing not found"), HttpStatus.NOT_FOUND);
+        }
+
+        List<Map<String, Object>> bookedRanges = new ArrayList<>();
+        for (Booking booking : availabilityService.getBookings(id, rangeStart, rangeEnd)) {
+            Map<String, Object> range = new HashMap<>();
+            range.put("startDate", booking.getStartDate());
+            range.put("endDate", booking.getEndDate());
+            bookedRanges.add(range);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("listingId", id);
+        response.put("from", rangeStart);
+        response.put("to", rangeEnd);
+        response.put("available", bookedRanges.isEmpty());
+        response.put("bookedRanges", bookedRanges);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> createListing(@RequestBody Listing listing) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    public ResponseEntity<?> createListing(@RequestBody Listing listing, @CurrentUser User user) {
         listing.setOwner(user);
         listing.setIsActive(true);
         listing.setRating(0.0);
+        listing.setRatingSum(0L);
         listing.setReviewsCount(0);
         listing.setRentalsCount(0);
         listing.setTotalEarnings(0.0);
         
-        // Generate slug from title
-        String slug = listing.getTitle().toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", "")
-                .replaceAll("\\s+", "-");
-        
-        // Check if slug exists and append a number if needed
-        String baseSlug = slug;
-        int counter = 1;
-        while (listingRepository.findBySlug(slug).isPresent()) {
-            slug = baseSlug + "-" + counter;
-            counter++;
-        }
-        
-        listing.setSlug(slug);
-        
-        Listing savedListing = listingRepository.save(listing);
+        Listing savedListing = listingSlugService.saveWithUniqueSlug(listing);
+        eventPublisher.publishEvent(new ListingChangedEvent(savedListing, ListingChangedEvent.Type.CREATED));
         return new ResponseEntity<>(savedListing, HttpStatus.CREATED);
     }
 
+    // Body is text/csv (header row; features and images separated by "|") or one JSON object per line
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> bulkImportListings(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        BulkImportResponse report = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? bulkListingImportService.importCsv(body, userDetails.getId())
+                : bulkListingImportService.importNdjson(body, userDetails.getId());
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> updateListing(@PathVariable Long id, @RequestBody Listing listingDetails) {
-        Optional<Listing> listingData = listingRepository.findById(id);
+    public ResponseEntity<?> updateListing(@PathVariable Long id, @RequestBody Listing listingDetails,
+                                           @CurrentUser Long userId) {
+        Access access = resourceAccessService.listingOwner(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to update this listing"), 
+                    HttpStatus.FORBIDDEN);
+        }
+        Optional<Listing> listingData = access == Access.ALLOWED
+                ? listingRepository.findById(id) : Optional.empty();
         
         if (listingData.isPresent()) {
             Listing listing = listingData.get();
             
-            // Check if the current user is the owner
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            if (!listing.getOwner().getId().equals(userDetails.getId())) {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to update this listing"), 
-                        HttpStatus.FORBIDDEN);
-            }
-            
             // Update listing fields
             listing.setTitle(listingDetails.getTitle());
             listing.setDescription(listingDetails.getDescription());
@@ -171,8 +320,12 @@ public class ListingController {
             listing.setCategory(listingDetails.getCategory());
             listing.setFeatures(listingDetails.getFeatures());
             listing.setImages(listingDetails.getImages());
+            // Collection-only edits do not trigger @LastModifiedDate, and updatedAt drives the ETag
+            listing.setUpdatedAt(LocalDateTime.now());
             
-            return new ResponseEntity<>(listingRepository.save(listing), HttpStatus.OK);
+            Listing savedListing = listingRepository.save(listing);
+            eventPublisher.publishEvent(new ListingChangedEvent(savedListing, ListingChangedEvent.Type.UPDATED));
+            return new ResponseEntity<>(savedListing, HttpStatus.OK);
         } else {
             return new ResponseEntity<>(new MessageResponse("Listing not found"), HttpStatus.NOT_FOUND);
         }
@@ -180,22 +333,18 @@ public class ListingController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> deleteListing(@PathVariable Long id) {
-        Optional<Listing> listingData = listingRepository.findById(id);
+    public ResponseEntity<?> deleteListing(@PathVariable Long id, @CurrentUser Long userId) {
+        Access access = resourceAccessService.listingOwner(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to delete this listing"), 
+                    HttpStatus.FORBIDDEN);
+        }
         
-        if (listingData.isPresent()) {
-            Listing listing = listingData.get();
-            
-            // Check if the current user is the owner
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            if (!listing.getOwner().getId().equals(userDetails.getId())) {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to delete this listing"), 
-                        HttpStatus.FORBIDDEN);
-            }
-            
-            listingRepository.delete(listing);
+        if (access == Access.ALLOWED && listingRepository.deleteListingById(id) > 0) {
+            resourceAccessService.listingDeleted(id);
+            // Listeners only need the id of a deleted listing
+            eventPublisher.publishEvent(new ListingChangedEvent(Listing.builder().id(id).build(),
+                    ListingChangedEvent.Type.DELETED));
             return new ResponseEntity<>(new MessageResponse("Listing deleted successfully"), HttpStatus.OK);
         } else {
             return new ResponseEntity<>(new MessageResponse("Listing not found"), HttpStatus.NOT_FOUND);
@@ -211,19 +360,33 @@ public class ListingController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> listingsPage = listingRepository.findByOwner(user, pageable);
+        Page<ListingCard> listingsPage = listingRepository.findCardsByOwnerId(userDetails.getId(), pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("listings", listingsPage.getContent());
+        response.put("listings", listingCardService.toResponses(listingsPage.getContent()));
         response.put("currentPage", listingsPage.getNumber());
         response.put("totalItems", listingsPage.getTotalElements());
         response.put("totalPages", listingsPage.getTotalPages());
 
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
-}
 
+    // Cursor scrolls only fetch ids (plus sort keys); the cards are then loaded in one query
+    private Map<String, Object> cursorResponse(Window<ListingRef> window) {
+        List<Long> ids = window.getContent().stream().map(ListingRef::getId).collect(Collectors.toList());
+        return cursorPagination.toResponse("listings", window, listingCardService.findByIds(ids));
+    }
+
+    // Listings with a blocking rental between the requested dates, as one array query parameter;
+    // empty when no range was given
+    private Long[] bookedListingIds(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null && endDate == null) {
+            return new Long[0];
+        }
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new InvalidDateRangeException("startDate and endDate must both be given, with endDate not before startDate");
+        }
+        return availabilityService.bookedListingIds(startDate, endDate).toArray(Long[]::new);
+    }
+}
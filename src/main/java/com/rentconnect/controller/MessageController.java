@@ -1,24 +1,51 @@
 package com.rentconnect.controller;
 
+import com.rentconnect.dto.request.BulkDeleteRequest;
+import com.rentconnect.dto.request.MarkReadRequest;
 import com.rentconnect.dto.response.MessageResponse;
+import com.rentconnect.export.NdjsonExporter;
 import com.rentconnect.model.Message;
 import com.rentconnect.model.User;
+import com.rentconnect.pagination.CursorPagination;
 import com.rentconnect.repository.MessageRepository;
+import com.rentconnect.repository.MessageThreadRepository;
+import com.rentconnect.repository.ThreadParticipantRepository;
 import com.rentconnect.repository.UserRepository;
+import com.rentconnect.repository.projection.ThreadSummary;
+import com.rentconnect.security.jwt.JwtUtils;
 import com.rentconnect.security.services.UserDetailsImpl;
+import com.rentconnect.service.MessageService;
+import com.rentconnect.service.MessageStreamService;
+import com.rentconnect.service.ResourceAccessService;
+import com.rentconnect.service.ResourceAccessService.Access;
+import com.rentconnect.web.CurrentUser;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -32,82 +59,250 @@ public class MessageController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CursorPagination cursorPagination;
+
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageThreadRepository messageThreadRepository;
+
+    @Autowired
+    private ThreadParticipantRepository threadParticipantRepository;
+
+    @Autowired
+    private MessageStreamService messageStreamService;
+
+    @Autowired
+    private ResourceAccessService resourceAccessService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    // How far back the inbox reaches when the client passes no "since"; 0 means no limit
+    @Value("${rentconnect.messages.inboxWindow:90d}")
+    private Duration inboxWindow;
+
     @GetMapping
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Map<String, Object>> getUserMessages(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @CurrentUser User user) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        Sort sort = Sort.by(sortDirection, sortBy);
+
+        // "since" limits the scan to recent messages (recent partitions once messages is
+        // partitioned); without one the inbox covers the last inboxWindow
+        if (since == null && !inboxWindow.isZero()) {
+            since = LocalDateTime.now().minus(inboxWindow);
+        }
+        if (after != null) {
+            ScrollPosition position = cursorPagination.decode(after, sort, Message.class);
+            Window<Message> window = since != null
+                    ? messageRepository.findBySenderAndCreatedAtGreaterThanEqualOrRecipientAndCreatedAtGreaterThanEqual(
+                            user, since, user, since, position, sort, Limit.of(size))
+                    : messageRepository.findBySenderOrRecipient(user, user, position, sort, Limit.of(size));
+            Map<String, Object> response = cursorPagination.toResponse("messages", window);
+            response.put("unreadCount", user.getUnreadMessages() != null ? user.getUnreadMessages() : 0);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+
+        Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Message> messagesPage = messageRepository.findUserMessages(user, pageable);
+        Page<Message> messagesPage = since != null
+                ? messageRepository.findUserMessagesSince(user, since, pageable)
+                : messageRepository.findUserMessages(user, pageable);
 
         Map<String, Object> response = new HashMap<>();
         response.put("messages", messagesPage.getContent());
         response.put("currentPage", messagesPage.getNumber());
         response.put("totalItems", messagesPage.getTotalElements());
         response.put("totalPages", messagesPage.getTotalPages());
-        response.put("unreadCount", messageRepository.countUnreadMessages(user));
+        response.put("unreadCount", user.getUnreadMessages() != null ? user.getUnreadMessages() : 0);
 
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> sendMessage(@RequestBody Message message) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User sender = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    public ResponseEntity<?> sendMessage(@RequestBody Message message, @CurrentUser User sender) {
         Optional<User> recipientData = userRepository.findById(message.getRecipient().getId());
         if (!recipientData.isPresent()) {
             return new ResponseEntity<>(new MessageResponse("Recipient not found"), HttpStatus.NOT_FOUND);
         }
         
         message.setSender(sender);
-        message.setIsRead(false);
-        
-        Message savedMessage = messageRepository.save(message);
+
+        Message savedMessage = messageService.send(message);
+
+        Long recipientId = savedMessage.getRecipient().getId();
+        messageStreamService.publishMessage(recipientId, savedMessage, messageService.getUnreadCount(recipientId));
+
         return new ResponseEntity<>(savedMessage, HttpStatus.CREATED);
     }
 
+    // Single-use ticket for opening the stream; EventSource cannot send the Authorization header
+    @PostMapping("/stream-ticket")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, Object>> createStreamTicket() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("ticket", jwtUtils.generateStreamTicket(userDetails));
+        response.put("expiresIn", jwtUtils.getStreamTicketTtl().toSeconds());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Server-sent events for the current user: "message" for each new message received and
+    // "unread" whenever the unread count changes. Browsers open it with ?ticket= from /stream-ticket
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<SseEmitter> streamMessages() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        SseEmitter emitter = messageStreamService.open(userDetails.getId());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+
+        messageStreamService.publishUnreadCount(userDetails.getId(), messageService.getUnreadCount(userDetails.getId()));
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    // Every message the current user sent or received, oldest first
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportMessages(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Long userId = userDetails.getId();
+
+        return ndjsonExporter.export("messages.ndjson", acceptEncoding,
+                () -> messageRepository.streamForUserExport(userId));
+    }
+
+    // Marks the current user's messages read in one statement: everything, or only one thread
+    // and/or only up to a message id or time
+    @PostMapping("/read")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, Object>> markMessagesRead(@RequestBody(required = false) MarkReadRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        int marked = messageService.markReadUpTo(userDetails.getId(), request != null ? request : new MarkReadRequest());
+        int unreadCount = messageService.getUnreadCount(userDetails.getId());
+        if (marked > 0) {
+            messageStreamService.publishUnreadCount(userDetails.getId(), unreadCount);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("marked", marked);
+        response.put("unreadCount", unreadCount);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Deletes the given messages in one statement; ids the current user neither sent nor received are skipped
+    @PostMapping("/delete")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, Object>> deleteMessages(@Valid @RequestBody BulkDeleteRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        MessageService.BulkDeleteResult result = messageService.deleteForUser(userDetails.getId(), request.getIds());
+        resourceAccessService.messagesDeleted(request.getIds());
+        for (Long recipientId : result.recipientsWithUnreadChanges()) {
+            messageStreamService.publishUnreadCount(recipientId, messageService.getUnreadCount(recipientId));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("deleted", result.deleted());
+        response.put("requested", request.getIds().size());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // The current user's conversations, most recently active first
+    @GetMapping("/threads")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, Object>> getThreads(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        Slice<ThreadSummary> threads = threadParticipantRepository.findInbox(
+                userDetails.getId(), PageRequest.of(page, size));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("threads", threads.getContent());
+        response.put("currentPage", threads.getNumber());
+        response.put("hasNext", threads.hasNext());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Messages of one thread, newest first, paged with the "after" cursor
+    @GetMapping("/threads/{id}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getThreadMessages(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        if (!messageThreadRepository.existsById(id)) {
+            return new ResponseEntity<>(new MessageResponse("Thread not found"), HttpStatus.NOT_FOUND);
+        }
+        if (!threadParticipantRepository.existsByThreadIdAndUserId(id, userDetails.getId())) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to view this thread"),
+                    HttpStatus.FORBIDDEN);
+        }
+
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
+        Window<Message> window = messageRepository.findByThreadId(
+                id, cursorPagination.decode(after, sort, Message.class), sort, Limit.of(size));
+        return new ResponseEntity<>(cursorPagination.toResponse("messages", window), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getMessageById(@PathVariable Long id) {
-        Optional<Message> messageData = messageRepository.findById(id);
+    public ResponseEntity<?> getMessageById(@PathVariable Long id, @CurrentUser Long userId) {
+        // Only the sender and the recipient may view it
+        Access access = resourceAccessService.messageParticipant(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to view this message"), 
+                    HttpStatus.FORBIDDEN);
+        }
+        Optional<Message> messageData = access == Access.ALLOWED ? messageRepository.findById(id) : Optional.empty();
         
         if (messageData.isPresent()) {
             Message message = messageData.get();
             
-            // Check if the current user is the sender or recipient
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            if (message.getSender().getId().equals(userDetails.getId()) || 
-                message.getRecipient().getId().equals(userDetails.getId())) {
-                
-                // Mark as read if the current user is the recipient
-                if (message.getRecipient().getId().equals(userDetails.getId()) && !message.getIsRead()) {
-                    message.setIsRead(true);
-                    messageRepository.save(message);
-                }
-                
-                return new ResponseEntity<>(message, HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to view this message"), 
-                        HttpStatus.FORBIDDEN);
+            // Mark as read if the current user is the recipient
+            if (message.getRecipient().getId().equals(userId) && !message.getIsRead()
+                    && messageService.markRead(message, userId)) {
+                message.setIsRead(true);
+                messageStreamService.publishUnreadCount(userId, messageService.getUnreadCount(userId));
             }
+            
+            return new ResponseEntity<>(message, HttpStatus.OK);
         } else {
             return new ResponseEntity<>(new MessageResponse("Message not found"), HttpStatus.NOT_FOUND);
         }
@@ -115,28 +310,26 @@ public class MessageController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> deleteMessage(@PathVariable Long id) {
-        Optional<Message> messageData = messageRepository.findById(id);
+    public ResponseEntity<?> deleteMessage(@PathVariable Long id, @CurrentUser Long userId) {
+        // Only the sender and the recipient may delete it
+        Access access = resourceAccessService.messageParticipant(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to delete this message"), 
+                    HttpStatus.FORBIDDEN);
+        }
         
-        if (messageData.isPresent()) {
-            Message message = messageData.get();
-            
-            // Check if the current user is the sender or recipient
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            if (message.getSender().getId().equals(userDetails.getId()) || 
-                message.getRecipient().getId().equals(userDetails.getId())) {
-                
-                messageRepository.delete(message);
+        if (access == Access.ALLOWED) {
+            // A single DELETE ... RETURNING; the message is never loaded
+            MessageService.BulkDeleteResult result = messageService.deleteForUser(userId, List.of(id));
+            if (result.deleted() > 0) {
+                resourceAccessService.messagesDeleted(List.of(id));
+                for (Long recipientId : result.recipientsWithUnreadChanges()) {
+                    messageStreamService.publishUnreadCount(recipientId, messageService.getUnreadCount(recipientId));
+                }
                 return new ResponseEntity<>(new MessageResponse("Message deleted successfully"), HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to delete this message"), 
-                        HttpStatus.FORBIDDEN);
             }
-        } else {
-            return new ResponseEntity<>(new MessageResponse("Message not found"), HttpStatus.NOT_FOUND);
         }
+        return new ResponseEntity<>(new MessageResponse("Message not found"), HttpStatus.NOT_FOUND);
     }
 }
 
@@ -1,26 +1,36 @@
 package com.rentconnect.controller;
 
+import com.rentconnect.availability.BookingService;
 import com.rentconnect.dto.response.MessageResponse;
+import com.rentconnect.exception.BookingConflictException;
+import com.rentconnect.export.NdjsonExporter;
 import com.rentconnect.model.*;
+import com.rentconnect.pagination.CursorPagination;
 import com.rentconnect.repository.ListingRepository;
 import com.rentconnect.repository.RentalRepository;
-import com.rentconnect.repository.UserRepository;
 import com.rentconnect.security.services.UserDetailsImpl;
+import com.rentconnect.service.ResourceAccessService;
+import com.rentconnect.service.ResourceAccessService.Access;
+import com.rentconnect.web.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -35,7 +45,16 @@ public class RentalController {
     private ListingRepository listingRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CursorPagination cursorPagination;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private ResourceAccessService resourceAccessService;
 
     @GetMapping("/my-rentals")
     @PreAuthorize("hasRole('USER')")
@@ -43,16 +62,20 @@ public class RentalController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "startDate") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after,
+            @CurrentUser User user) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        Sort sort = Sort.by(sortDirection, sortBy);
+
+        if (after != null) {
+            Window<Rental> window = rentalRepository.findByRenter(
+                    user, cursorPagination.decode(after, sort, Rental.class), sort, Limit.of(size));
+            return new ResponseEntity<>(cursorPagination.toResponse("rentals", window), HttpStatus.OK);
+        }
+
+        Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<Rental> rentalsPage = rentalRepository.findByRenter(user, pageable);
 
@@ -71,14 +94,9 @@ public class RentalController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "startDate") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @CurrentUser User user) {
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
@@ -95,27 +113,17 @@ public class RentalController {
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> createRental(@RequestBody Rental rental) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    public ResponseEntity<?> createRental(@RequestBody Rental rental, @CurrentUser User user) {
         Optional<Listing> listingData = listingRepository.findById(rental.getListing().getId());
         if (!listingData.isPresent()) {
             return new ResponseEntity<>(new MessageResponse("Listing not found"), HttpStatus.NOT_FOUND);
         }
         
         Listing listing = listingData.get();
-        
-        // Check if the listing is available for the requested dates
-        List<Rental> conflictingRentals = rentalRepository.findByListingAndStartDateGreaterThanEqualAndEndDateLessThanEqual(
-                listing, rental.getStartDate(), rental.getEndDate());
-        
-        if (!conflictingRentals.isEmpty()) {
-            return new ResponseEntity<>(new MessageResponse("Listing is not available for the requested dates"), 
-                    HttpStatus.BAD_REQUEST);
+
+        if (rental.getStartDate() == null || rental.getEndDate() == null
+                || rental.getEndDate().isBefore(rental.getStartDate())) {
+            return new ResponseEntity<>(new MessageResponse("Invalid rental dates"), HttpStatus.BAD_REQUEST);
         }
         
         rental.setRenter(user);
@@ -126,40 +134,46 @@ public class RentalController {
         long days = rental.getStartDate().datesUntil(rental.getEndDate().plusDays(1)).count();
         rental.setTotalPrice(listing.getPricePerDay() * days);
         
-        Rental savedRental = rentalRepository.save(rental);
-        return new ResponseEntity<>(savedRental, HttpStatus.CREATED);
+        try {
+            Rental savedRental = bookingService.book(rental);
+            return new ResponseEntity<>(savedRental, HttpStatus.CREATED);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(new MessageResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> updateRentalStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate) {
-        Optional<Rental> rentalData = rentalRepository.findById(id);
+    public ResponseEntity<?> updateRentalStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate,
+                                                @CurrentUser Long userId) {
+        // Only the owner of the listing may change the status
+        Access access = resourceAccessService.rentalListingOwner(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to update this rental"), 
+                    HttpStatus.FORBIDDEN);
+        }
+        Optional<Rental> rentalData = access == Access.ALLOWED ? rentalRepository.findById(id) : Optional.empty();
         
         if (rentalData.isPresent()) {
             Rental rental = rentalData.get();
             
-            // Check if the current user is the owner of the listing
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            if (!rental.getListing().getOwner().getId().equals(userDetails.getId())) {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to update this rental"), 
-                        HttpStatus.FORBIDDEN);
-            }
-            
             try {
                 RentalStatus newStatus = RentalStatus.valueOf(statusUpdate.get("status").toUpperCase());
-                rental.setStatus(newStatus);
-                
-                // If the rental is completed, update the listing's rental count and earnings
-                if (newStatus == RentalStatus.COMPLETED) {
-                    Listing listing = rental.getListing();
-                    listing.setRentalsCount(listing.getRentalsCount() + 1);
-                    listing.setTotalEarnings(listing.getTotalEarnings() + rental.getTotalPrice());
-                    listingRepository.save(listing);
+                RentalStatus currentStatus = rental.getStatus();
+                if (newStatus == currentStatus) {
+                    return new ResponseEntity<>(rental, HttpStatus.OK);
+                }
+
+                try {
+                    if (!bookingService.changeStatus(rental, newStatus, LocalDateTime.now())) {
+                        return new ResponseEntity<>(new MessageResponse("Rental status was changed concurrently, please retry"),
+                                HttpStatus.CONFLICT);
+                    }
+                } catch (BookingConflictException e) {
+                    return new ResponseEntity<>(new MessageResponse(e.getMessage()), HttpStatus.CONFLICT);
                 }
                 
-                return new ResponseEntity<>(rentalRepository.save(rental), HttpStatus.OK);
+                return new ResponseEntity<>(rental, HttpStatus.OK);
             } catch (IllegalArgumentException e) {
                 return new ResponseEntity<>(new MessageResponse("Invalid status value"), HttpStatus.BAD_REQUEST);
             }
@@ -168,24 +182,32 @@ public class RentalController {
         }
     }
 
+    // Every rental on the current user's listings, oldest first
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportRentals(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Long ownerId = userDetails.getId();
+
+        return ndjsonExporter.export("rentals.ndjson", acceptEncoding,
+                () -> rentalRepository.streamForOwnerExport(ownerId));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getRentalById(@PathVariable Long id) {
-        Optional<Rental> rental = rentalRepository.findById(id);
+    public ResponseEntity<?> getRentalById(@PathVariable Long id, @CurrentUser Long userId) {
+        // The renter and the owner of the listing may view it
+        Access access = resourceAccessService.rentalParticipant(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to view this rental"), 
+                    HttpStatus.FORBIDDEN);
+        }
+        Optional<Rental> rental = access == Access.ALLOWED ? rentalRepository.findById(id) : Optional.empty();
         
         if (rental.isPresent()) {
-            // Check if the current user is the renter or the owner of the listing
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            Rental rentalData = rental.get();
-            if (rentalData.getRenter().getId().equals(userDetails.getId()) || 
-                rentalData.getListing().getOwner().getId().equals(userDetails.getId())) {
-                return new ResponseEntity<>(rentalData, HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to view this rental"), 
-                        HttpStatus.FORBIDDEN);
-            }
+            return new ResponseEntity<>(rental.get(), HttpStatus.OK);
         } else {
             return new ResponseEntity<>(new MessageResponse("Rental not found"), HttpStatus.NOT_FOUND);
         }
@@ -4,20 +4,24 @@ import com.rentconnect.dto.response.MessageResponse;
 import com.rentconnect.model.Listing;
 import com.rentconnect.model.Review;
 import com.rentconnect.model.User;
+import com.rentconnect.pagination.CursorPagination;
 import com.rentconnect.repository.ListingRepository;
 import com.rentconnect.repository.ReviewRepository;
-import com.rentconnect.repository.UserRepository;
-import com.rentconnect.security.services.UserDetailsImpl;
+import com.rentconnect.repository.projection.RemovedReview;
+import com.rentconnect.service.ResourceAccessService;
+import com.rentconnect.service.ResourceAccessService.Access;
+import com.rentconnect.service.ReviewService;
+import com.rentconnect.web.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -35,7 +39,13 @@ public class ReviewController {
     private ListingRepository listingRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CursorPagination cursorPagination;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ResourceAccessService resourceAccessService;
 
     @GetMapping("/listing/{listingId}")
     public ResponseEntity<Map<String, Object>> getReviewsByListing(
@@ -43,7 +53,8 @@ public class ReviewController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after) {
 
         Optional<Listing> listingData = listingRepository.findById(listingId);
         if (!listingData.isPresent()) {
@@ -53,7 +64,15 @@ public class ReviewController {
         Listing listing = listingData.get();
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+        Sort sort = Sort.by(sortDirection, sortBy);
+
+        if (after != null) {
+            Window<Review> window = reviewRepository.findByListing(
+                    listing, cursorPagination.decode(after, sort, Review.class), sort, Limit.of(size));
+            return new ResponseEntity<>(cursorPagination.toResponse("reviews", window), HttpStatus.OK);
+        }
+
+        Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<Review> reviewsPage = reviewRepository.findByListing(listing, pageable);
 
@@ -68,13 +87,7 @@ public class ReviewController {
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> createReview(@RequestBody Review review) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    public ResponseEntity<?> createReview(@RequestBody Review review, @CurrentUser User user) {
         Optional<Listing> listingData = listingRepository.findById(review.getListing().getId());
         if (!listingData.isPresent()) {
             return new ResponseEntity<>(new MessageResponse("Listing not found"), HttpStatus.NOT_FOUND);
@@ -85,74 +98,27 @@ public class ReviewController {
         review.setUser(user);
         review.setListing(listing);
         
-        Review savedReview = reviewRepository.save(review);
-        
-        // Update listing rating
-        int reviewsCount = listing.getReviewsCount() + 1;
-        double newRating = ((listing.getRating() * listing.getReviewsCount()) + review.getRating()) / reviewsCount;
-        
-        listing.setReviewsCount(reviewsCount);
-        listing.setRating(newRating);
-        listingRepository.save(listing);
-        
-        // Update owner rating
-        User owner = listing.getOwner();
-        int ownerReviewsCount = owner.getReviewsCount() + 1;
-        double ownerNewRating = ((owner.getRating() * owner.getReviewsCount()) + review.getRating()) / ownerReviewsCount;
-        
-        owner.setReviewsCount(ownerReviewsCount);
-        owner.setRating(ownerNewRating);
-        userRepository.save(owner);
+        // Saves the review and updates listing and owner ratings in one transaction
+        Review savedReview = reviewService.create(review);
         
         return new ResponseEntity<>(savedReview, HttpStatus.CREATED);
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> deleteReview(@PathVariable Long id) {
-        Optional<Review> reviewData = reviewRepository.findById(id);
+    public ResponseEntity<?> deleteReview(@PathVariable Long id, @CurrentUser Long userId) {
+        // Only the author may delete a review
+        Access access = resourceAccessService.reviewAuthor(id, userId);
+        if (access == Access.FORBIDDEN) {
+            return new ResponseEntity<>(new MessageResponse("You are not authorized to delete this review"), 
+                    HttpStatus.FORBIDDEN);
+        }
+        // Deletes the review and updates listing and owner ratings in one transaction
+        Optional<RemovedReview> removed = access == Access.ALLOWED
+                ? reviewService.delete(id) : Optional.empty();
         
-        if (reviewData.isPresent()) {
-            Review review = reviewData.get();
-            
-            // Check if the current user is the author of the review
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            
-            if (!review.getUser().getId().equals(userDetails.getId())) {
-                return new ResponseEntity<>(new MessageResponse("You are not authorized to delete this review"), 
-                        HttpStatus.FORBIDDEN);
-            }
-            
-            // Update listing rating
-            Listing listing = review.getListing();
-            int reviewsCount = listing.getReviewsCount() - 1;
-            
-            if (reviewsCount > 0) {
-                double newRating = ((listing.getRating() * listing.getReviewsCount()) - review.getRating()) / reviewsCount;
-                listing.setRating(newRating);
-            } else {
-                listing.setRating(0.0);
-            }
-            
-            listing.setReviewsCount(reviewsCount);
-            listingRepository.save(listing);
-            
-            // Update owner rating
-            User owner = listing.getOwner();
-            int ownerReviewsCount = owner.getReviewsCount() - 1;
-            
-            if (ownerReviewsCount > 0) {
-                double ownerNewRating = ((owner.getRating() * owner.getReviewsCount()) - review.getRating()) / ownerReviewsCount;
-                owner.setRating(ownerNewRating);
-            } else {
-                owner.setRating(0.0);
-            }
-            
-            owner.setReviewsCount(ownerReviewsCount);
-            userRepository.save(owner);
-            
-            reviewRepository.delete(review);
+        if (removed.isPresent()) {
+            resourceAccessService.reviewDeleted(id);
             return new ResponseEntity<>(new MessageResponse("Review deleted successfully"), HttpStatus.OK);
         } else {
             return new ResponseEntity<>(new MessageResponse("Review not found"), HttpStatus.NOT_FOUND);
@@ -3,7 +3,10 @@ package com.rentconnect.controller;
 import com.rentconnect.dto.response.MessageResponse;
 import com.rentconnect.model.User;
 import com.rentconnect.repository.UserRepository;
+import com.rentconnect.repository.projection.UserVersion;
+import com.rentconnect.security.services.UserDetailsCache;
 import com.rentconnect.security.services.UserDetailsImpl;
+import com.rentconnect.web.EntityTags;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +14,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Optional;
 
@@ -21,6 +25,9 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @GetMapping("/me")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> getCurrentUser() {
@@ -41,26 +48,43 @@ public class UserController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl currentUserDetails = (UserDetailsImpl) authentication.getPrincipal();
         
-        Optional<User> userData = userRepository.findById(userDetails.getId());
+        Optional<User> userData = userRepository.findById(currentUserDetails.getId());
         if (userData.isPresent()) {
             User user = userData.get();
             
             // Update user fields
-            user.setFirstName(currentUserDetails.getFirstName());
-            user.setLastName(currentUserDetails.getLastName());
-            user.setPicture(currentUserDetails.getPicture());
+            user.setFirstName(userDetails.getFirstName());
+            user.setLastName(userDetails.getLastName());
+            user.setPicture(userDetails.getPicture());
             
-            return new ResponseEntity<>(userRepository.save(user), HttpStatus.OK);
+            User savedUser = userRepository.save(user);
+            userDetailsCache.evict(savedUser.getId());
+            return new ResponseEntity<>(savedUser, HttpStatus.OK);
         } else {
             return new ResponseEntity<>(new MessageResponse("User not found"), HttpStatus.NOT_FOUND);
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUserById(@PathVariable Long id) {
+    public ResponseEntity<?> getUserById(@PathVariable Long id, WebRequest request) {
+        Optional<UserVersion> version = userRepository.findVersionById(id);
+        if (version.isPresent()) {
+            String etag = EntityTags.etag(id, version.get().getUpdatedAt());
+            if (etag != null && request.checkNotModified(etag, EntityTags.lastModified(version.get().getUpdatedAt()))) {
+                return null;
+            }
+        }
+
         Optional<User> user = userRepository.findById(id);
         if (user.isPresent()) {
-            return new ResponseEntity<>(user.get(), HttpStatus.OK);
+            String etag = EntityTags.etag(id, user.get().getUpdatedAt());
+            if (etag == null) {
+                return new ResponseEntity<>(user.get(), HttpStatus.OK);
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .lastModified(EntityTags.lastModified(user.get().getUpdatedAt()))
+                    .body(user.get());
         } else {
             return new ResponseEntity<>(new MessageResponse("User not found"), HttpStatus.NOT_FOUND);
         }
@@ -0,0 +1,48 @@
+package com.rentconnect.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkListingRow {
+    @NotBlank
+    @Size(max = 255)
+    private String title;
+
+    @Size(max = 2000)
+    private String description;
+
+    @NotNull
+    @Positive
+    private Double pricePerDay;
+
+    @PositiveOrZero
+    private Double securityDeposit;
+
+    @Size(max = 255)
+    private String location;
+
+    @Size(max = 255)
+    private String category;
+
+    @Size(max = 255)
+    private String priceUnit;
+
+    // "features": null reads as no features rather than replacing the default with null
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private List<@NotBlank @Size(max = 255) String> features = new ArrayList<>();
+
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private List<@NotBlank @Size(max = 255) String> images = new ArrayList<>();
+}
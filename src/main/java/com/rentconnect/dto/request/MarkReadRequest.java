@@ -0,0 +1,16 @@
+package com.rentconnect.dto.request;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Every filter is optional; an empty body marks the whole inbox read
+@Data
+public class MarkReadRequest {
+    private Long threadId;
+
+    // Inclusive upper bounds
+    private Long upToId;
+
+    private LocalDateTime upTo;
+}
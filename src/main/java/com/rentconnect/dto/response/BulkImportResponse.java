@@ -0,0 +1,34 @@
+package com.rentconnect.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkImportResponse {
+    private int created;
+    private int failed;
+    private List<RowResult> rows = new ArrayList<>();
+
+    public void addCreated(int row, Long id, String slug) {
+        rows.add(new RowResult(row, "CREATED", id, slug, null));
+        created++;
+    }
+
+    public void addFailed(int row, List<String> errors) {
+        rows.add(new RowResult(row, "FAILED", null, null, errors));
+        failed++;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RowResult {
+        private int row;
+        private String status;
+        private Long id;
+        private String slug;
+        private List<String> errors;
+    }
+}
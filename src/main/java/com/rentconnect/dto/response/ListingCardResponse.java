@@ -0,0 +1,55 @@
+package com.rentconnect.dto.response;
+
+import com.rentconnect.repository.projection.ListingCard;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ListingCardResponse {
+    private Long id;
+    private String title;
+    private String slug;
+    private Double pricePerDay;
+    private String priceUnit;
+    private String location;
+    private String category;
+    private Double rating;
+    private Integer reviewsCount;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+    private String coverImage;
+    private Owner owner;
+
+    @Data
+    public static class Owner {
+        private Long id;
+        private String firstName;
+        private String lastName;
+        private String picture;
+    }
+
+    public static ListingCardResponse from(ListingCard card, String coverImage) {
+        ListingCardResponse response = new ListingCardResponse();
+        response.setId(card.getId());
+        response.setTitle(card.getTitle());
+        response.setSlug(card.getSlug());
+        response.setPricePerDay(card.getPricePerDay());
+        response.setPriceUnit(card.getPriceUnit());
+        response.setLocation(card.getLocation());
+        response.setCategory(card.getCategory());
+        response.setRating(card.getRating());
+        response.setReviewsCount(card.getReviewsCount());
+        response.setIsActive(card.getIsActive());
+        response.setCreatedAt(card.getCreatedAt());
+        response.setCoverImage(coverImage);
+
+        Owner owner = new Owner();
+        owner.setId(card.getOwnerId());
+        owner.setFirstName(card.getOwnerFirstName());
+        owner.setLastName(card.getOwnerLastName());
+        owner.setPicture(card.getOwnerPicture());
+        response.setOwner(owner);
+        return response;
+    }
+}
@@ -0,0 +1,18 @@
+package com.rentconnect.event;
+
+import com.rentconnect.model.Listing;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ListingChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Listing listing;
+    private final Type type;
+}
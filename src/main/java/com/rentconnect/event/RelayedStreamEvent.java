@@ -0,0 +1,20 @@
+package com.rentconnect.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// A message stream event published on another instance and relayed here
+@Getter
+@AllArgsConstructor
+public class RelayedStreamEvent {
+    public enum Type {
+        MESSAGE,
+        UNREAD
+    }
+
+    private final Type type;
+    private final Long userId;
+    // Only set for MESSAGE
+    private final Long messageId;
+    private final long unreadCount;
+}
@@ -0,0 +1,79 @@
+package com.rentconnect.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Writes a repository stream to the response as newline-delimited JSON, one row at a time.
+// The query runs inside a read-only transaction on the async thread so the JDBC cursor stays
+// open (Postgres only honours the fetch size inside a transaction). Rows are projections, so
+// nothing is kept in the persistence context while the export runs.
+@Component
+public class NdjsonExporter {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public ResponseEntity<StreamingResponseBody> export(String filename, String acceptEncoding,
+                                                        Supplier<? extends Stream<?>> rows) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip
+                    ? new GZIPOutputStream(out, BUFFER_SIZE)
+                    : new BufferedOutputStream(out, BUFFER_SIZE);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<?> stream = rows.get()) {
+                    stream.forEach(row -> writeRow(target, row));
+                }
+            });
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            target.flush();
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(APPLICATION_NDJSON);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    private void writeRow(OutputStream target, Object row) {
+        try {
+            target.write(objectMapper.writeValueAsBytes(row));
+            target.write('\n');
+        } catch (IOException e) {
+            // Usually the client went away; abort the query
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -47,9 +47,15 @@ public class Listing {
     @Column(name = "price_unit")
     private String priceUnit;
 
+    // Aggregates are maintained by in-database increments and the reconcile job (see
+    // AggregateUpdateService); saving the entity writes them on insert only
+    @Column(updatable = false)
     private Double rating;
 
-    @Column(name = "reviews_count")
+    @Column(name = "rating_sum", updatable = false)
+    private Long ratingSum;
+
+    @Column(name = "reviews_count", updatable = false)
     private Integer reviewsCount;
 
     @Column(unique = true)
@@ -63,6 +69,7 @@ public class Listing {
     @ElementCollection
     @CollectionTable(name = "listing_images", joinColumns = @JoinColumn(name = "listing_id"))
     @Column(name = "image_url")
+    @OrderColumn(name = "image_order")
     private List<String> images = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -72,10 +79,10 @@ public class Listing {
     @Column(name = "is_active")
     private Boolean isActive;
 
-    @Column(name = "rentals_count")
+    @Column(name = "rentals_count", updatable = false)
     private Integer rentalsCount;
 
-    @Column(name = "total_earnings")
+    @Column(name = "total_earnings", updatable = false)
     private Double totalEarnings;
 
     @CreatedDate
@@ -44,6 +44,10 @@ public class Message {
     @JoinColumn(name = "listing_id")
     private Listing listing;
 
+    // Assigned by MessageService when the message is sent
+    @Column(name = "thread_id")
+    private Long threadId;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
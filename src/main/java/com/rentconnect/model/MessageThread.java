@@ -0,0 +1,57 @@
+package com.rentconnect.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One conversation per pair of users, optionally about a listing. threadKey is
+// "lowUserId:highUserId:listingId" (listing part empty when there is none), so both
+// directions of a conversation land in the same thread. The last-message columns are a
+// snapshot for the inbox and are maintained by MessageService.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "message_threads")
+public class MessageThread {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "thread_key", nullable = false, unique = true, length = 64)
+    private String threadKey;
+
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    @Column(name = "listing_id")
+    private Long listingId;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_message_preview", length = 200)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public static String key(Long userA, Long userB, Long listingId) {
+        return Math.min(userA, userB) + ":" + Math.max(userA, userB) + ":" + (listingId != null ? listingId : "");
+    }
+}
@@ -0,0 +1,37 @@
+package com.rentconnect.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A user's side of a thread: their unread count and the time of the latest message,
+// copied here so the inbox is a single scan of the (user_id, last_message_at) index.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "thread_participants",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"thread_id", "user_id"}))
+public class ThreadParticipant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "thread_id", nullable = false)
+    private Long threadId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+}
@@ -1,5 +1,8 @@
 package com.rentconnect.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,6 +23,8 @@ import java.util.Set;
 @Entity
 @Table(name = "users")
 @EntityListeners(AuditingEntityListener.class)
+// Lazy references (see @CurrentUser) are serialized through their Hibernate proxy
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 
     @Id
@@ -29,6 +34,7 @@ public class User {
     @Column(nullable = false, unique = true)
     private String email;
 
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     @Column(name = "first_name")
@@ -68,11 +74,21 @@ public class User {
     @Column(name = "response_time")
     private String responseTime;
 
+    // Rating aggregates: written on insert, then only by AggregateUpdateService increments
+    @Column(updatable = false)
     private Double rating;
 
-    @Column(name = "reviews_count")
+    @Column(name = "rating_sum", updatable = false)
+    private Long ratingSum;
+
+    @Column(name = "reviews_count", updatable = false)
     private Integer reviewsCount;
 
+    // Maintained by in-database increments only (see MessageService), never by saving the entity
+    @JsonIgnore
+    @Column(name = "unread_messages", updatable = false)
+    private Integer unreadMessages;
+
     public User(String email, String password, String firstName, String lastName) {
         this.email = email;
         this.password = password;
@@ -0,0 +1,126 @@
+package com.rentconnect.pagination;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentconnect.exception.InvalidCursorException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Opaque "after" tokens for keyset (seek) pagination. A token is the Base64url JSON of the
+// last row's sort key and id; values are re-typed from the JPA metamodel when decoded.
+@Component
+public class CursorPagination {
+    private static final TypeReference<LinkedHashMap<String, String>> KEYS_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public ScrollPosition decode(String after, Sort sort, Class<?> entityClass) {
+        if (after == null || after.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, String> rawKeys;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(after);
+            rawKeys = objectMapper.readValue(json, KEYS_TYPE);
+        } catch (Exception e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+
+        Set<String> expectedKeys = new HashSet<>();
+        sort.forEach(order -> expectedKeys.add(order.getProperty()));
+        expectedKeys.add("id");
+        if (!rawKeys.keySet().equals(expectedKeys)) {
+            throw new InvalidCursorException("Cursor does not match the requested sort order");
+        }
+
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        rawKeys.forEach((property, value) -> keys.put(property, convert(entityType, property, value)));
+        return ScrollPosition.forward(keys);
+    }
+
+    public Map<String, Object> toResponse(String contentKey, Window<?> window) {
+        return toResponse(contentKey, window, window.getContent());
+    }
+
+    // For scrolls over a lightweight projection whose rows are rendered separately
+    public Map<String, Object> toResponse(String contentKey, Window<?> window, List<?> content) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = encode(position.getKeys());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put(contentKey, content);
+        response.put("hasNext", window.hasNext());
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
+
+    private String encode(Map<String, ?> keys) {
+        Map<String, String> rawKeys = new LinkedHashMap<>();
+        keys.forEach((property, value) -> rawKeys.put(property, value == null ? null : value.toString()));
+        try {
+            byte[] json = objectMapper.writeValueAsString(rawKeys).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to encode cursor", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object convert(EntityType<?> entityType, String property, String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Class<?> type;
+        try {
+            Attribute<?, ?> attribute = entityType.getAttribute(property);
+            type = attribute.getJavaType();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Unknown cursor key: " + property);
+        }
+
+        try {
+            if (type == String.class) {
+                return value;
+            } else if (type == Long.class || type == long.class) {
+                return Long.valueOf(value);
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(value);
+            } else if (type == Double.class || type == double.class) {
+                return Double.valueOf(value);
+            } else if (type == Boolean.class || type == boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            } else if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) type, value);
+            }
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Malformed cursor value for " + property);
+        }
+        throw new InvalidCursorException("Cannot paginate by cursor on " + property);
+    }
+}
@@ -1,36 +1,214 @@
 package com.rentconnect.repository;
 
 import com.rentconnect.model.Listing;
-import com.rentconnect.model.User;
+import com.rentconnect.repository.projection.ListingCard;
+import com.rentconnect.repository.projection.ListingExportRow;
+import com.rentconnect.repository.projection.ListingImage;
+import com.rentconnect.repository.projection.ListingRef;
+import com.rentconnect.repository.projection.ListingSearchDocument;
+import com.rentconnect.repository.projection.ListingVersion;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ListingRepository extends JpaRepository<Listing, Long> {
+public interface ListingRepository extends JpaRepository<Listing, Long>, JpaSpecificationExecutor<Listing> {
+    // Must stay in sync with idx_listings_search_vector in schema.sql so the GIN index is used
+    String SEARCH_VECTOR = "(setweight(to_tsvector('english', coalesce(l.title, '')), 'A') || " +
+            "setweight(to_tsvector('english', coalesce(l.description, '')), 'B'))";
+
+    // Flat card columns with the owner joined in, so no User entity (or its roles) is loaded
+    String CARD_SELECT = "SELECT l.id AS id, l.title AS title, l.slug AS slug, l.pricePerDay AS pricePerDay, " +
+            "l.priceUnit AS priceUnit, l.location AS location, l.category AS category, l.rating AS rating, " +
+            "l.reviewsCount AS reviewsCount, l.isActive AS isActive, l.createdAt AS createdAt, " +
+            "o.id AS ownerId, o.firstName AS ownerFirstName, o.lastName AS ownerLastName, o.picture AS ownerPicture " +
+            "FROM Listing l JOIN l.owner o ";
+
     Optional<Listing> findBySlug(String slug);
+
+    @Query("SELECT l.owner.id FROM Listing l WHERE l.id = :id")
+    Optional<Long> findOwnerIdById(Long id);
+
+    // Deletes the listing with its features and images in one statement, without loading it
+    @Transactional
+    @Modifying
+    @Query(value = "WITH features AS (DELETE FROM listing_features WHERE listing_id = :id), " +
+            "images AS (DELETE FROM listing_images WHERE listing_id = :id) " +
+            "DELETE FROM listings WHERE id = :id",
+            nativeQuery = true)
+    int deleteListingById(Long id);
+
+    Boolean existsBySlug(String slug);
+
+    // The listing payload embeds the owner, so both timestamps feed the ETag
+    @Query("SELECT l.id AS id, l.updatedAt AS updatedAt, o.updatedAt AS ownerUpdatedAt " +
+           "FROM Listing l JOIN l.owner o WHERE l.slug = :slug")
+    Optional<ListingVersion> findVersionBySlug(String slug);
+
+    // Highest numeric suffix in use for a base slug: 0 for the bare base, -1 when it is free.
+    // Suffixed slugs are the byte range ['base-', 'base.'), an index range scan under the C
+    // collation (see schema.sql); the base only ever contains [a-z0-9-], so it is safe to splice
+    // into the pattern.
+    @Query(value = "SELECT COALESCE(MAX(CASE WHEN l.slug = :base THEN 0 " +
+            "ELSE CAST(substring(l.slug from char_length(:base) + 2) AS integer) END), -1) " +
+            "FROM listings l " +
+            "WHERE l.slug = :base OR (l.slug COLLATE \"C\" >= :base || '-' AND l.slug COLLATE \"C\" < :base || '.' " +
+            "AND l.slug ~ ('^' || :base || '-[0-9]{1,9}$'))",
+            nativeQuery = true)
+    int findMaxSlugSuffix(String base);
     
-    Page<Listing> findByIsActiveTrue(Pageable pageable);
-    
-    Page<Listing> findByOwner(User owner, Pageable pageable);
-    
-    Page<Listing> findByCategoryAndIsActiveTrue(String category, Pageable pageable);
+    @Query(value = CARD_SELECT + "WHERE l.isActive = true",
+           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.isActive = true")
+    Page<ListingCard> findActiveCards(Pageable pageable);
+
+    // Excluded ids are bound as a single array parameter, however many listings are booked
+    @Query(value = CARD_SELECT + "WHERE l.isActive = true AND NOT array_contains(:excludedIds, l.id)",
+           countQuery = "SELECT COUNT(l) FROM Listing l " +
+                   "WHERE l.isActive = true AND NOT array_contains(:excludedIds, l.id)")
+    Page<ListingCard> findActiveCardsExcluding(Long[] excludedIds, Pageable pageable);
+
+    @Query(value = CARD_SELECT + "WHERE l.isActive = true AND l.category = :category",
+           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.isActive = true AND l.category = :category")
+    Page<ListingCard> findActiveCardsByCategory(String category, Pageable pageable);
+
+    @Query(value = CARD_SELECT + "WHERE l.isActive = true AND l.category = :category " +
+                   "AND NOT array_contains(:excludedIds, l.id)",
+           countQuery = "SELECT COUNT(l) FROM Listing l " +
+                   "WHERE l.isActive = true AND l.category = :category AND NOT array_contains(:excludedIds, l.id)")
+    Page<ListingCard> findActiveCardsByCategoryExcluding(String category, Long[] excludedIds, Pageable pageable);
+
+    @Query(value = CARD_SELECT + "WHERE l.owner.id = :ownerId",
+           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.owner.id = :ownerId")
+    Page<ListingCard> findCardsByOwnerId(Long ownerId, Pageable pageable);
+
+    @Query(CARD_SELECT + "WHERE l.id IN :ids")
+    List<ListingCard> findCardsByIdIn(Collection<Long> ids);
+
+    @Query(CARD_SELECT + "WHERE l.isActive = true ORDER BY l.createdAt DESC, l.id DESC")
+    List<ListingCard> findNewestActiveCards(Limit limit);
+
+    // First image of each listing by image_order, read from the (listing_id, image_order) key
+    @Query(value = "SELECT DISTINCT ON (listing_id) listing_id AS listingId, image_url AS imageUrl " +
+            "FROM listing_images WHERE listing_id IN (:ids) ORDER BY listing_id, image_order",
+            nativeQuery = true)
+    List<ListingImage> findCoverImagesByListingIdIn(Collection<Long> ids);
+
+    // Keyset scrolls select only the id and sort keys; cards are then loaded by id
+    Window<ListingRef> findByIsActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    // String queries cannot scroll, so the exclusions are specifications (loading whole rows for
+    // the page); value() binds the array as one parameter instead of rendering it inline
+    default Window<ListingRef> findActiveExcluding(
+            Long[] excludedIds, ScrollPosition position, Sort sort, Limit limit) {
+        Specification<Listing> spec = (root, query, cb) -> cb.and(
+                cb.isTrue(root.get("isActive")),
+                cb.isFalse(excludedIdsContain(cb, excludedIds, root)));
+        return findBy(spec, q -> q.as(ListingRef.class).sortBy(sort).limit(limit.max()).scroll(position));
+    }
+
+    Window<ListingRef> findByCategoryAndIsActiveTrue(String category, ScrollPosition position, Sort sort, Limit limit);
+
+    default Window<ListingRef> findActiveByCategoryExcluding(
+            String category, Long[] excludedIds, ScrollPosition position, Sort sort, Limit limit) {
+        Specification<Listing> spec = (root, query, cb) -> cb.and(
+                cb.isTrue(root.get("isActive")),
+                cb.equal(root.get("category"), category),
+                cb.isFalse(excludedIdsContain(cb, excludedIds, root)));
+        return findBy(spec, q -> q.as(ListingRef.class).sortBy(sort).limit(limit.max()).scroll(position));
+    }
+
+    private static Expression<Boolean> excludedIdsContain(CriteriaBuilder cb, Long[] excludedIds, Root<Listing> root) {
+        return cb.function("array_contains", Boolean.class,
+                ((HibernateCriteriaBuilder) cb).value(excludedIds), root.get("id"));
+    }
     
-    @Query("SELECT l FROM Listing l WHERE l.isActive = true AND " +
-           "(LOWER(l.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(l.description) LIKE LOWER(CONCAT('%', :query, '%')))")
-    Page<Listing> search(String query, Pageable pageable);
+    @Query(value = "SELECT l.id FROM listings l, websearch_to_tsquery('english', :query) q " +
+            "WHERE l.is_active = true AND " + SEARCH_VECTOR + " @@ q " +
+            "ORDER BY ts_rank(" + SEARCH_VECTOR + ", q) DESC, l.id DESC",
+            countQuery = "SELECT COUNT(*) FROM listings l WHERE l.is_active = true AND " +
+                    SEARCH_VECTOR + " @@ websearch_to_tsquery('english', :query)",
+            nativeQuery = true)
+    Page<Long> fullTextSearch(String query, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id AS id, l.title AS title, l.description AS description " +
+           "FROM Listing l WHERE l.isActive = true")
+    Stream<ListingSearchDocument> streamSearchDocuments();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT l.id AS id, l.title AS title, l.slug AS slug, l.description AS description, " +
+           "l.pricePerDay AS pricePerDay, l.securityDeposit AS securityDeposit, l.priceUnit AS priceUnit, " +
+           "l.location AS location, l.category AS category, l.rating AS rating, l.reviewsCount AS reviewsCount, " +
+           "l.owner.id AS ownerId, l.createdAt AS createdAt, l.updatedAt AS updatedAt " +
+           "FROM Listing l WHERE l.isActive = true ORDER BY l.id")
+    Stream<ListingExportRow> streamActiveForExport();
     
     @Query("SELECT l FROM Listing l WHERE l.isActive = true AND " +
            "l.category = :category AND " +
            "l.pricePerDay BETWEEN :minPrice AND :maxPrice")
     Page<Listing> findByCategoryAndPriceRange(String category, Double minPrice, Double maxPrice, Pageable pageable);
-    
-    List<Listing> findTop8ByIsActiveTrueOrderByCreatedAtDesc();
-}
 
+    @Modifying
+    @Query("UPDATE Listing l SET " +
+           "l.ratingSum = COALESCE(l.ratingSum, 0) + :ratingDelta, " +
+           "l.reviewsCount = COALESCE(l.reviewsCount, 0) + :countDelta, " +
+           "l.rating = CASE WHEN COALESCE(l.reviewsCount, 0) + :countDelta > 0 " +
+           "THEN (COALESCE(l.ratingSum, 0) + :ratingDelta) * 1.0 / (COALESCE(l.reviewsCount, 0) + :countDelta) " +
+           "ELSE 0.0 END, " +
+           "l.updatedAt = :now " +
+           "WHERE l.id = :listingId")
+    int applyReviewDelta(Long listingId, long ratingDelta, int countDelta, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Listing l SET " +
+           "l.rentalsCount = COALESCE(l.rentalsCount, 0) + :countDelta, " +
+           "l.totalEarnings = COALESCE(l.totalEarnings, 0) + :earningsDelta, " +
+           "l.updatedAt = :now " +
+           "WHERE l.id = :listingId")
+    int applyRentalDelta(Long listingId, int countDelta, double earningsDelta, LocalDateTime now);
+
+    // Recomputes review and completed-rental aggregates from the source tables, touching only drifted rows
+    @Modifying
+    @Query(value = "UPDATE listings l SET " +
+            "rating_sum = a.rating_sum, reviews_count = a.reviews_count, " +
+            "rating = CASE WHEN a.reviews_count > 0 THEN a.rating_sum::float8 / a.reviews_count ELSE 0 END, " +
+            "rentals_count = a.rentals_count, total_earnings = a.total_earnings, updated_at = now() " +
+            "FROM (SELECT l2.id, COALESCE(rv.rating_sum, 0) AS rating_sum, COALESCE(rv.reviews_count, 0) AS reviews_count, " +
+            "COALESCE(rt.rentals_count, 0) AS rentals_count, COALESCE(rt.total_earnings, 0) AS total_earnings " +
+            "FROM listings l2 " +
+            "LEFT JOIN (SELECT listing_id, SUM(rating) AS rating_sum, COUNT(*) AS reviews_count " +
+            "FROM reviews GROUP BY listing_id) rv ON rv.listing_id = l2.id " +
+            "LEFT JOIN (SELECT listing_id, COUNT(*) AS rentals_count, SUM(total_price) AS total_earnings " +
+            "FROM rentals WHERE status = 'COMPLETED' GROUP BY listing_id) rt ON rt.listing_id = l2.id) a " +
+            "WHERE a.id = l.id AND (" +
+            "l.rating_sum IS DISTINCT FROM a.rating_sum OR " +
+            "l.reviews_count IS DISTINCT FROM a.reviews_count OR " +
+            "l.rentals_count IS DISTINCT FROM a.rentals_count OR " +
+            "round(l.total_earnings::numeric, 2) IS DISTINCT FROM round(a.total_earnings::numeric, 2))",
+            nativeQuery = true)
+    int reconcileAggregates();
+}
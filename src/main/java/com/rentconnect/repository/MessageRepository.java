@@ -2,18 +2,81 @@ package com.rentconnect.repository;
 
 import com.rentconnect.model.Message;
 import com.rentconnect.model.User;
+import com.rentconnect.repository.projection.DeletedMessageCount;
+import com.rentconnect.repository.projection.MessageExportRow;
+import com.rentconnect.repository.projection.MessageParties;
+import com.rentconnect.repository.projection.ThreadReadCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT m FROM Message m WHERE m.sender = :user OR m.recipient = :user ORDER BY m.createdAt DESC")
     Page<Message> findUserMessages(User user, Pageable pageable);
+
+    @Query("SELECT m.sender.id AS senderId, m.recipient.id AS recipientId FROM Message m WHERE m.id = :id")
+    Optional<MessageParties> findPartiesById(Long id);
+
+    // With a lower bound on createdAt, a partitioned messages table is only scanned from that month on
+    @Query("SELECT m FROM Message m WHERE (m.sender = :user OR m.recipient = :user) AND m.createdAt >= :since " +
+           "ORDER BY m.createdAt DESC")
+    Page<Message> findUserMessagesSince(User user, LocalDateTime since, Pageable pageable);
+
+    Window<Message> findBySenderOrRecipient(User sender, User recipient, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Message> findBySenderAndCreatedAtGreaterThanEqualOrRecipientAndCreatedAtGreaterThanEqual(
+            User sender, LocalDateTime sentSince, User recipient, LocalDateTime receivedSince,
+            ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Message> findByThreadId(Long threadId, ScrollPosition position, Sort sort, Limit limit);
     
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.recipient = :user AND m.isRead = false")
-    Long countUnreadMessages(User user);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT m.id AS id, m.sender.id AS senderId, m.recipient.id AS recipientId, m.listing.id AS listingId, " +
+           "m.subject AS subject, m.content AS content, m.isRead AS isRead, m.createdAt AS createdAt " +
+           "FROM Message m WHERE m.sender.id = :userId OR m.recipient.id = :userId ORDER BY m.id")
+    Stream<MessageExportRow> streamForUserExport(Long userId);
+
+    // Only the call that actually flips the flag gets 1, so the unread counter moves once
+    @Modifying
+    @Query("UPDATE Message m SET m.isRead = true WHERE m.id = :id AND m.recipient.id = :recipientId AND m.isRead = false")
+    int markRead(Long id, Long recipientId);
+
+    // One UPDATE over the caller's unread messages; reports how many flipped in each thread
+    @Query(value = "WITH marked AS (" +
+            "UPDATE messages SET is_read = true " +
+            "WHERE recipient_id = :userId AND is_read = false AND id <= :upToId AND created_at <= :upTo " +
+            "AND (CAST(:threadId AS bigint) IS NULL OR thread_id = :threadId) " +
+            "RETURNING thread_id) " +
+            "SELECT thread_id AS threadId, COUNT(*) AS count FROM marked GROUP BY thread_id",
+            nativeQuery = true)
+    List<ThreadReadCount> markReadUpTo(Long userId, Long threadId, Long upToId, LocalDateTime upTo);
+
+    // One DELETE limited to messages the caller sent or received; ids outside that are ignored
+    @Query(value = "WITH deleted AS (" +
+            "DELETE FROM messages WHERE id IN (:ids) AND (sender_id = :userId OR recipient_id = :userId) " +
+            "RETURNING thread_id, recipient_id, is_read) " +
+            "SELECT thread_id AS threadId, recipient_id AS recipientId, COUNT(*) AS total, " +
+            "COUNT(*) FILTER (WHERE is_read = false) AS unread " +
+            "FROM deleted GROUP BY thread_id, recipient_id",
+            nativeQuery = true)
+    List<DeletedMessageCount> deleteForUser(Collection<Long> ids, Long userId);
 }
 
@@ -0,0 +1,42 @@
+package com.rentconnect.repository;
+
+import com.rentconnect.model.MessageThread;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface MessageThreadRepository extends JpaRepository<MessageThread, Long> {
+    Optional<MessageThread> findByThreadKey(String threadKey);
+
+    // Concurrent first messages between the same pair both end up on the one row
+    @Modifying
+    @Query(value = "INSERT INTO message_threads (thread_key, user_low_id, user_high_id, listing_id, created_at) " +
+            "VALUES (:threadKey, :userLowId, :userHighId, :listingId, now()) " +
+            "ON CONFLICT (thread_key) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String threadKey, Long userLowId, Long userHighId, Long listingId);
+
+    // Ignores a message older than the current snapshot, so concurrent sends cannot regress it
+    @Modifying
+    @Query("UPDATE MessageThread t SET t.lastMessageId = :messageId, t.lastSenderId = :senderId, " +
+           "t.lastMessagePreview = :preview, t.lastMessageAt = :sentAt " +
+           "WHERE t.id = :threadId AND (t.lastMessageId IS NULL OR t.lastMessageId < :messageId)")
+    int updateSnapshot(Long threadId, Long messageId, Long senderId, String preview, LocalDateTime sentAt);
+
+    // After the thread's latest message is deleted, point the snapshot at the newest one left
+    @Modifying
+    @Query(value = "UPDATE message_threads t SET " +
+            "(last_message_id, last_sender_id, last_message_preview, last_message_at) = " +
+            "(SELECT m.id, m.sender_id, left(m.content, 200), m.created_at FROM messages m " +
+            "WHERE m.thread_id = t.id ORDER BY m.id DESC LIMIT 1) " +
+            "WHERE t.id IN (:threadIds) AND t.last_message_id IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM messages m WHERE m.id = t.last_message_id)",
+            nativeQuery = true)
+    int refreshStaleSnapshots(Collection<Long> threadIds);
+}
@@ -4,23 +4,82 @@ import com.rentconnect.model.Listing;
 import com.rentconnect.model.Rental;
 import com.rentconnect.model.RentalStatus;
 import com.rentconnect.model.User;
+import com.rentconnect.repository.projection.BookingInterval;
+import com.rentconnect.repository.projection.RentalExportRow;
+import com.rentconnect.repository.projection.RentalParties;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long> {
     Page<Rental> findByRenter(User renter, Pageable pageable);
+
+    Window<Rental> findByRenter(User renter, ScrollPosition position, Sort sort, Limit limit);
     
     Page<Rental> findByListing_Owner(User owner, Pageable pageable);
     
     List<Rental> findByListingAndStatus(Listing listing, RentalStatus status);
     
-    List<Rental> findByListingAndStartDateGreaterThanEqualAndEndDateLessThanEqual(
-            Listing listing, LocalDate startDate, LocalDate endDate);
+    @Query("SELECT r.id AS id, r.listing.id AS listingId, r.startDate AS startDate, " +
+           "r.endDate AS endDate, r.status AS status FROM Rental r " +
+           "WHERE r.listing.id = :listingId AND r.status IN :statuses AND r.endDate >= :since")
+    List<BookingInterval> findBookings(Long listingId, Collection<RentalStatus> statuses, LocalDate since);
+
+    @Query("SELECT r.id AS id, r.listing.id AS listingId, r.startDate AS startDate, " +
+           "r.endDate AS endDate, r.status AS status FROM Rental r " +
+           "WHERE r.listing.id IN :listingIds AND r.status IN :statuses AND r.endDate >= :since")
+    List<BookingInterval> findBookingsByListingIdIn(Collection<Long> listingIds, Collection<RentalStatus> statuses,
+                                                    LocalDate since);
+
+    // Listings whose rentals were created or changed since the given time (rentals are never deleted)
+    @Query("SELECT DISTINCT r.listing.id FROM Rental r WHERE r.updatedAt >= :since")
+    List<Long> findListingIdsUpdatedSince(LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.id AS id, r.listing.id AS listingId, r.startDate AS startDate, " +
+           "r.endDate AS endDate, r.status AS status FROM Rental r " +
+           "WHERE r.status IN :statuses AND r.endDate >= :since")
+    Stream<BookingInterval> streamBookings(Collection<RentalStatus> statuses, LocalDate since);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT r.id AS id, l.id AS listingId, l.title AS listingTitle, r.renter.id AS renterId, " +
+           "r.startDate AS startDate, r.endDate AS endDate, r.totalPrice AS totalPrice, r.status AS status, " +
+           "r.createdAt AS createdAt, r.updatedAt AS updatedAt " +
+           "FROM Rental r JOIN r.listing l WHERE l.owner.id = :ownerId ORDER BY r.id")
+    Stream<RentalExportRow> streamForOwnerExport(Long ownerId);
+
+    @Query("SELECT DISTINCT r.listing.id FROM Rental r " +
+           "WHERE r.status IN :statuses AND r.startDate <= :to AND r.endDate >= :from")
+    List<Long> findBookedListingIds(Collection<RentalStatus> statuses, LocalDate from, LocalDate to);
+
+    @Query("SELECT r.renter.id AS renterId, l.owner.id AS ownerId FROM Rental r JOIN r.listing l WHERE r.id = :id")
+    Optional<RentalParties> findPartiesById(Long id);
+
+    // Compare-and-set on the status so concurrent transitions are applied exactly once
+    @Transactional
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = :newStatus, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = :currentStatus")
+    int updateStatus(Long id, RentalStatus currentStatus, RentalStatus newStatus, LocalDateTime now);
 }
 
@@ -3,15 +3,37 @@ package com.rentconnect.repository;
 import com.rentconnect.model.Listing;
 import com.rentconnect.model.Review;
 import com.rentconnect.model.User;
+import com.rentconnect.repository.projection.RemovedReview;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     Page<Review> findByListing(Listing listing, Pageable pageable);
+
+    Window<Review> findByListing(Listing listing, ScrollPosition position, Sort sort, Limit limit);
     
     Page<Review> findByUser(User user, Pageable pageable);
+
+    @Query("SELECT r.user.id FROM Review r WHERE r.id = :id")
+    Optional<Long> findUserIdById(Long id);
+
+    // Empty when the review was already gone
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM reviews WHERE id = :id RETURNING listing_id, rating) " +
+            "SELECT d.listing_id AS listingId, l.owner_id AS ownerId, d.rating AS rating " +
+            "FROM deleted d JOIN listings l ON l.id = d.listing_id",
+            nativeQuery = true)
+    Optional<RemovedReview> deleteReturningRating(Long id);
 }
 
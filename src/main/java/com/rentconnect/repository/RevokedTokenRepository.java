@@ -0,0 +1,29 @@
+package com.rentconnect.repository;
+
+import com.rentconnect.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    List<RevokedToken> findByRevokedAtGreaterThanEqualAndExpiresAtAfter(LocalDateTime since, LocalDateTime now);
+
+    // Concurrent revocations of the same token (two logouts, or a logout and an admin kill) share the row
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (jti, revoked_at, expires_at) VALUES (:jti, :revokedAt, :expiresAt) " +
+            "ON CONFLICT (jti) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String jti, LocalDateTime revokedAt, LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,57 @@
+package com.rentconnect.repository;
+
+import com.rentconnect.model.ThreadParticipant;
+import com.rentconnect.repository.projection.ThreadSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ThreadParticipantRepository extends JpaRepository<ThreadParticipant, Long> {
+    Boolean existsByThreadIdAndUserId(Long threadId, Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO thread_participants (thread_id, user_id, unread_count) " +
+            "VALUES (:threadId, :userId, 0) ON CONFLICT (thread_id, user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(Long threadId, Long userId);
+
+    @Modifying
+    @Query("UPDATE ThreadParticipant p SET p.lastMessageAt = :sentAt, " +
+           "p.unreadCount = p.unreadCount + CASE WHEN p.userId = :recipientId THEN 1 ELSE 0 END " +
+           "WHERE p.threadId = :threadId")
+    int recordMessage(Long threadId, Long recipientId, LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE ThreadParticipant p SET " +
+           "p.unreadCount = CASE WHEN p.unreadCount > :count THEN p.unreadCount - :count ELSE 0 END " +
+           "WHERE p.threadId = :threadId AND p.userId = :userId")
+    int decrementUnread(Long threadId, Long userId, int count);
+
+    // The inbox: one scan of the participant index, newest conversation first. Slice, so no COUNT
+    @Query("SELECT t.id AS id, t.listingId AS listingId, l.title AS listingTitle, " +
+           "o.id AS otherUserId, o.firstName AS otherFirstName, o.lastName AS otherLastName, o.picture AS otherPicture, " +
+           "t.lastMessageId AS lastMessageId, t.lastSenderId AS lastSenderId, " +
+           "t.lastMessagePreview AS lastMessagePreview, p.lastMessageAt AS lastMessageAt, p.unreadCount AS unreadCount " +
+           "FROM ThreadParticipant p " +
+           "JOIN MessageThread t ON t.id = p.threadId " +
+           "JOIN User o ON o.id = CASE WHEN t.userLowId = :userId THEN t.userHighId ELSE t.userLowId END " +
+           "LEFT JOIN Listing l ON l.id = t.listingId " +
+           "WHERE p.userId = :userId AND p.lastMessageAt IS NOT NULL " +
+           "ORDER BY p.lastMessageAt DESC, p.id DESC")
+    Slice<ThreadSummary> findInbox(Long userId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE thread_participants p SET unread_count = a.unread " +
+            "FROM (SELECT p2.id, COUNT(m.id) AS unread FROM thread_participants p2 " +
+            "LEFT JOIN messages m ON m.thread_id = p2.thread_id AND m.recipient_id = p2.user_id AND m.is_read = false " +
+            "GROUP BY p2.id) a " +
+            "WHERE a.id = p.id AND p.unread_count IS DISTINCT FROM a.unread",
+            nativeQuery = true)
+    int reconcileUnreadCounts();
+}
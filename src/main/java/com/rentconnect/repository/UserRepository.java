@@ -1,9 +1,14 @@
 package com.rentconnect.repository;
 
 import com.rentconnect.model.User;
+import com.rentconnect.repository.projection.UserVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -11,5 +16,78 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
     Optional<User> findByProviderId(String providerId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(String email, String password);
+
+    // Creates an OAuth2 user with ROLE_USER in one statement; returns 0 if the email already exists
+    @Transactional
+    @Modifying
+    @Query(value = "WITH inserted AS (" +
+            "INSERT INTO users (email, first_name, last_name, picture, auth_provider, provider_id, member_since, " +
+            "response_time, rating, rating_sum, reviews_count, unread_messages, created_at, updated_at) " +
+            "VALUES (:email, :firstName, :lastName, :picture, :provider, :providerId, :memberSince, " +
+            "'Within a few hours', 0, 0, 0, 0, now(), now()) " +
+            "ON CONFLICT (email) DO NOTHING RETURNING id) " +
+            "INSERT INTO user_roles (user_id, role_id) " +
+            "SELECT i.id, r.id FROM inserted i JOIN roles r ON r.name = 'ROLE_USER'",
+            nativeQuery = true)
+    int insertOAuth2UserIfAbsent(String email, String firstName, String lastName, String picture,
+                                 String provider, String providerId, String memberSince);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.firstName = :firstName, u.lastName = :lastName, u.picture = :picture, " +
+           "u.updatedAt = :now WHERE u.id = :id")
+    int updateProfile(Long id, String firstName, String lastName, String picture, LocalDateTime now);
+
+    @Query("SELECT u.id AS id, u.updatedAt AS updatedAt FROM User u WHERE u.id = :id")
+    Optional<UserVersion> findVersionById(Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET " +
+           "u.ratingSum = COALESCE(u.ratingSum, 0) + :ratingDelta, " +
+           "u.reviewsCount = COALESCE(u.reviewsCount, 0) + :countDelta, " +
+           "u.rating = CASE WHEN COALESCE(u.reviewsCount, 0) + :countDelta > 0 " +
+           "THEN (COALESCE(u.ratingSum, 0) + :ratingDelta) * 1.0 / (COALESCE(u.reviewsCount, 0) + :countDelta) " +
+           "ELSE 0.0 END, " +
+           "u.updatedAt = :now " +
+           "WHERE u.id = :userId")
+    int applyReviewDelta(Long userId, long ratingDelta, int countDelta, LocalDateTime now);
+
+    // Unread counts are not part of the public profile, so updatedAt is left alone
+    @Modifying
+    @Query("UPDATE User u SET u.unreadMessages = COALESCE(u.unreadMessages, 0) + :delta WHERE u.id = :userId")
+    int adjustUnreadMessages(Long userId, int delta);
+
+    @Query("SELECT COALESCE(u.unreadMessages, 0) FROM User u WHERE u.id = :userId")
+    int findUnreadMessages(Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE users u SET unread_messages = a.unread " +
+            "FROM (SELECT u2.id, COUNT(m.id) AS unread FROM users u2 " +
+            "LEFT JOIN messages m ON m.recipient_id = u2.id AND m.is_read = false " +
+            "GROUP BY u2.id) a " +
+            "WHERE a.id = u.id AND u.unread_messages IS DISTINCT FROM a.unread",
+            nativeQuery = true)
+    int reconcileUnreadMessages();
+
+    // Owner ratings are the aggregate of reviews across all of the owner's listings
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+            "rating_sum = a.rating_sum, reviews_count = a.reviews_count, " +
+            "rating = CASE WHEN a.reviews_count > 0 THEN a.rating_sum::float8 / a.reviews_count ELSE 0 END, " +
+            "updated_at = now() " +
+            "FROM (SELECT u2.id, COALESCE(SUM(r.rating), 0) AS rating_sum, COUNT(r.id) AS reviews_count " +
+            "FROM users u2 " +
+            "LEFT JOIN listings l ON l.owner_id = u2.id " +
+            "LEFT JOIN reviews r ON r.listing_id = l.id " +
+            "GROUP BY u2.id) a " +
+            "WHERE a.id = u.id AND (" +
+            "u.rating_sum IS DISTINCT FROM a.rating_sum OR " +
+            "u.reviews_count IS DISTINCT FROM a.reviews_count)",
+            nativeQuery = true)
+    int reconcileAggregates();
 }
 
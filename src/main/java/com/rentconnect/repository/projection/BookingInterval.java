@@ -0,0 +1,17 @@
+package com.rentconnect.repository.projection;
+
+import com.rentconnect.model.RentalStatus;
+
+import java.time.LocalDate;
+
+public interface BookingInterval {
+    Long getId();
+
+    Long getListingId();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+
+    RentalStatus getStatus();
+}
@@ -0,0 +1,12 @@
+package com.rentconnect.repository.projection;
+
+// Messages removed by a bulk delete, grouped by thread and recipient
+public interface DeletedMessageCount {
+    Long getThreadId();
+
+    Long getRecipientId();
+
+    Long getTotal();
+
+    Long getUnread();
+}
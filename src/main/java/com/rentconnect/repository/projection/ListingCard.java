@@ -0,0 +1,35 @@
+package com.rentconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface ListingCard {
+    Long getId();
+
+    String getTitle();
+
+    String getSlug();
+
+    Double getPricePerDay();
+
+    String getPriceUnit();
+
+    String getLocation();
+
+    String getCategory();
+
+    Double getRating();
+
+    Integer getReviewsCount();
+
+    Boolean getIsActive();
+
+    LocalDateTime getCreatedAt();
+
+    Long getOwnerId();
+
+    String getOwnerFirstName();
+
+    String getOwnerLastName();
+
+    String getOwnerPicture();
+}
@@ -0,0 +1,33 @@
+package com.rentconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface ListingExportRow {
+    Long getId();
+
+    String getTitle();
+
+    String getSlug();
+
+    String getDescription();
+
+    Double getPricePerDay();
+
+    Double getSecurityDeposit();
+
+    String getPriceUnit();
+
+    String getLocation();
+
+    String getCategory();
+
+    Double getRating();
+
+    Integer getReviewsCount();
+
+    Long getOwnerId();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,5 @@
+package com.rentconnect.repository.projection;
+
+public interface ListingRef {
+    Long getId();
+}
@@ -0,0 +1,9 @@
+package com.rentconnect.repository.projection;
+
+public interface ListingSearchDocument {
+    Long getId();
+
+    String getTitle();
+
+    String getDescription();
+}
@@ -0,0 +1,11 @@
+package com.rentconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface ListingVersion {
+    Long getId();
+
+    LocalDateTime getUpdatedAt();
+
+    LocalDateTime getOwnerUpdatedAt();
+}
@@ -0,0 +1,21 @@
+package com.rentconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface MessageExportRow {
+    Long getId();
+
+    Long getSenderId();
+
+    Long getRecipientId();
+
+    Long getListingId();
+
+    String getSubject();
+
+    String getContent();
+
+    Boolean getIsRead();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,7 @@
+package com.rentconnect.repository.projection;
+
+public interface MessageParties {
+    Long getSenderId();
+
+    Long getRecipientId();
+}
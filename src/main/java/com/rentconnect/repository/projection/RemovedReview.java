@@ -0,0 +1,10 @@
+package com.rentconnect.repository.projection;
+
+// What the rating aggregates need once a review is gone
+public interface RemovedReview {
+    Long getListingId();
+
+    Long getOwnerId();
+
+    Integer getRating();
+}
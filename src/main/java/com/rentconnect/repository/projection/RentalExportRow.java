@@ -0,0 +1,28 @@
+package com.rentconnect.repository.projection;
+
+import com.rentconnect.model.RentalStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public interface RentalExportRow {
+    Long getId();
+
+    Long getListingId();
+
+    String getListingTitle();
+
+    Long getRenterId();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+
+    Double getTotalPrice();
+
+    RentalStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,8 @@
+package com.rentconnect.repository.projection;
+
+// The two users a rental concerns: who rents and who owns the listing
+public interface RentalParties {
+    Long getRenterId();
+
+    Long getOwnerId();
+}
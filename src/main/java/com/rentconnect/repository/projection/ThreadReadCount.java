@@ -0,0 +1,8 @@
+package com.rentconnect.repository.projection;
+
+// How many messages a bulk statement marked read in one thread
+public interface ThreadReadCount {
+    Long getThreadId();
+
+    Long getCount();
+}
@@ -0,0 +1,30 @@
+package com.rentconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+// One inbox row: the thread snapshot, the other participant and the caller's unread count
+public interface ThreadSummary {
+    Long getId();
+
+    Long getListingId();
+
+    String getListingTitle();
+
+    Long getOtherUserId();
+
+    String getOtherFirstName();
+
+    String getOtherLastName();
+
+    String getOtherPicture();
+
+    Long getLastMessageId();
+
+    Long getLastSenderId();
+
+    String getLastMessagePreview();
+
+    LocalDateTime getLastMessageAt();
+
+    Integer getUnreadCount();
+}
@@ -0,0 +1,9 @@
+package com.rentconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface UserVersion {
+    Long getId();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,184 @@
+package com.rentconnect.search;
+
+import com.rentconnect.event.ListingChangedEvent;
+import com.rentconnect.model.Listing;
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.projection.ListingSearchDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Inverted index over active listings ranked with BM25. Title terms are counted
+// TITLE_WEIGHT times so a match in the title outranks one in the description.
+@Component
+@ConditionalOnProperty(prefix = "rentconnect.search", name = "engine", havingValue = "memory")
+public class InMemoryListingSearchEngine implements ListingSearchEngine {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryListingSearchEngine.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (listing id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    // listing id -> terms, kept so a document can be removed without re-tokenizing
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+
+    private long totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+
+            try (Stream<ListingSearchDocument> stream = listingRepository.streamSearchDocuments()) {
+                stream.forEach(doc -> addDocument(doc.getId(), doc.getTitle(), doc.getDescription()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Listing search index built with {} documents and {} terms", documents.size(), postings.size());
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        Listing listing = event.getListing();
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(listing.getId());
+            if (event.getType() != ListingChangedEvent.Type.DELETED && Boolean.TRUE.equals(listing.getIsActive())) {
+                addDocument(listing.getId(), listing.getTitle(), listing.getDescription());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Long> search(String query, Pageable pageable) {
+        List<String> queryTerms = tokenize(query).distinct().collect(Collectors.toList());
+        List<Map.Entry<Long, Double>> ranked;
+
+        lock.readLock().lock();
+        try {
+            ranked = rank(queryTerms);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Long> pageIds = ranked.subList(from, to).stream()
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(pageIds, pageable, ranked.size());
+    }
+
+    private List<Map.Entry<Long, Double>> rank(List<String> queryTerms) {
+        if (documents.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        double averageLength = (double) totalLength / documents.size();
+        Map<Long, Double> scores = new HashMap<>();
+
+        for (String queryTerm : queryTerms) {
+            for (Map.Entry<String, Map<Long, Integer>> term : matchingTerms(queryTerm)) {
+                Map<Long, Integer> termPostings = term.getValue();
+                double idf = Math.log(1 + (documents.size() - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+                // Prefix expansions count for less than an exact term match
+                double boost = term.getKey().equals(queryTerm) ? 1.0 : 0.5;
+
+                for (Map.Entry<Long, Integer> posting : termPostings.entrySet()) {
+                    double tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * documentLengths.get(posting.getKey()) / averageLength);
+                    double score = boost * idf * (tf * (K1 + 1)) / (tf + norm);
+                    scores.merge(posting.getKey(), score, Double::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()));
+        return ranked;
+    }
+
+    private Collection<Map.Entry<String, Map<Long, Integer>>> matchingTerms(String queryTerm) {
+        if (queryTerm.length() < MIN_PREFIX_LENGTH) {
+            Map<Long, Integer> exact = postings.get(queryTerm);
+            return exact == null ? Collections.emptyList() : List.of(Map.entry(queryTerm, exact));
+        }
+
+        return postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet().stream()
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .collect(Collectors.toList());
+    }
+
+    private void addDocument(Long id, String title, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(title).forEach(term -> terms.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(description).forEach(term -> terms.merge(term, 1, Integer::sum));
+
+        int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+        terms.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+        documents.put(id, terms);
+        documentLengths.put(id, length);
+        totalLength += length;
+    }
+
+    private void removeDocument(Long id) {
+        Map<String, Integer> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= documentLengths.remove(id);
+    }
+
+    private static Stream<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty());
+    }
+}
@@ -0,0 +1,9 @@
+package com.rentconnect.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ListingSearchEngine {
+    // Returns ids of active listings matching the query, most relevant first
+    Page<Long> search(String query, Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package com.rentconnect.search;
+
+import com.rentconnect.repository.ListingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+// Ranked tsvector search. The GIN expression index from schema.sql is maintained by
+// Postgres itself, so listing writes need no extra work here.
+@Component
+@ConditionalOnProperty(prefix = "rentconnect.search", name = "engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresListingSearchEngine implements ListingSearchEngine {
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Override
+    public Page<Long> search(String query, Pageable pageable) {
+        return listingRepository.fullTextSearch(query, pageable);
+    }
+}
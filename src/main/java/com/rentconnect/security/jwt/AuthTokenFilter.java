@@ -1,6 +1,8 @@
 package com.rentconnect.security.jwt;
 
+import com.rentconnect.security.services.UserDetailsImpl;
 import com.rentconnect.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,9 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -24,25 +24,53 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
-            String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            String jwt = jwtUtils.parseJwt(request);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            // Stream tickets are only accepted from the stream's query string, never as bearer tokens
+            if (claims != null && jwtUtils.isStreamTicket(claims)) {
+                claims = null;
+            }
+            boolean ticket = false;
+            if (claims == null) {
+                String streamTicket = jwtUtils.parseStreamTicket(request);
+                claims = streamTicket != null ? jwtUtils.parseClaims(streamTicket) : null;
+                if (claims != null && !jwtUtils.isStreamTicket(claims)) {
+                    claims = null;
+                }
+                ticket = claims != null;
+            }
+            if (claims != null) {
+                // The token carries id and roles, so no lookup is needed; older tokens fall back to the database
+                UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+                if (userDetails == null) {
+                    userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject());
+                }
+                // Checked with the resolved id so user-wide revocations also cover tokens without a uid claim
+                if (tokenRevocationService.isRevoked(claims, userDetails.getId())) {
+                    logger.error("JWT token is revoked: {}", claims.getId());
+                } else if (ticket && !tokenRevocationService.useOnce(claims.getId(), claims.getExpiration())) {
+                    logger.error("Stream ticket was already used: {}", claims.getId());
+                } else {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities());
+                    authentication.setDetails(detailsSource.buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -50,15 +78,5 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
-
-        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7);
-        }
-
-        return null;
-    }
 }
 
@@ -1,76 +1,169 @@
 package com.rentconnect.security.jwt;
 
+import com.rentconnect.security.oauth2.CustomOAuth2User;
 import com.rentconnect.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String TOKEN_TYPE_CLAIM = "typ";
+    static final String STREAM_TICKET_TYPE = "stream";
+
+    private static final String MESSAGE_STREAM_PATH = "/api/messages/stream";
+
     @Value("${rentconnect.app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${rentconnect.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${rentconnect.messages.streamTicketTtl:30s}")
+    private Duration streamTicketTtl;
+
+    // Decoding the secret and building the parser are done once; both are immutable and thread-safe
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parser().verifyWith(key).build();
+    }
+
     public String generateJwtToken(Authentication authentication) {
-        UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        Object principal = authentication.getPrincipal();
+        UserDetailsImpl userPrincipal = principal instanceof CustomOAuth2User oAuth2User
+                ? oAuth2User.getUserDetails()
+                : (UserDetailsImpl) principal;
+
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
 
+        Date now = new Date();
         return Jwts.builder()
-                .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .id(UUID.randomUUID().toString())
+                .subject(userPrincipal.getUsername())
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .claim(ROLES_CLAIM, roles)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + jwtExpirationMs))
+                .signWith(key, Jwts.SIG.HS256)
                 .compact();
     }
 
-    public String generateTokenFromUsername(String username) {
+    // Short-lived, single-use credential for opening the message stream. EventSource cannot set
+    // headers, so it travels in the query string, where access logs and proxies record it;
+    // the bearer token never does.
+    public String generateStreamTicket(UserDetailsImpl user) {
+        List<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
+        Date now = new Date();
         return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .id(UUID.randomUUID().toString())
+                .subject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, roles)
+                .claim(TOKEN_TYPE_CLAIM, STREAM_TICKET_TYPE)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + streamTicketTtl.toMillis()))
+                .signWith(key, Jwts.SIG.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public Duration getStreamTicketTtl() {
+        return streamTicketTtl;
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    public String parseJwt(HttpServletRequest request) {
+        String headerAuth = request.getHeader("Authorization");
+
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            return headerAuth.substring(7);
+        }
+
+        return null;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    // ?ticket= on the message stream only
+    public String parseStreamTicket(HttpServletRequest request) {
+        if (!MESSAGE_STREAM_PATH.equals(request.getRequestURI())) {
+            return null;
+        }
+        String ticket = request.getParameter("ticket");
+        return StringUtils.hasText(ticket) ? ticket : null;
+    }
+
+    public boolean isStreamTicket(Claims claims) {
+        return STREAM_TICKET_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
+    }
+
+    // Verifies the token and returns its claims, or null when it is not acceptable
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SignatureException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
     }
-}
 
+    // Principal built from the uid/roles claims; null for tokens issued without them
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (userId == null || roles == null) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+        return new UserDetailsImpl(userId, claims.getSubject(), null, null, null, null, authorities);
+    }
+
+    public String getUserNameFromJwtToken(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.rentconnect.security.jwt;
+
+import com.rentconnect.model.RevokedToken;
+import com.rentconnect.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Deny-list of revoked tokens. The table is the source of truth; every instance mirrors the
+// unexpired rows in memory (and polls for rows written by other instances), so checking a
+// token is two map lookups and never touches the database. Entries drop out once the
+// tokens they cover would have expired. Polling goes by revoked_at rather than id: ids are
+// handed out before commit, so a row with a lower id can become visible after a higher one.
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final LocalDateTime SYNC_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${rentconnect.app.jwtExpirationMs}")
+    private int jwtExpirationMs;
+
+    @Value("${rentconnect.auth.revocationSyncOverlap:5m}")
+    private Duration syncOverlap;
+
+    // jti -> expiry (epoch millis)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    // user id -> tokens issued at or before this instant (epoch seconds) are revoked
+    private final Map<Long, Cutoff> userCutoffs = new ConcurrentHashMap<>();
+
+    // Start of the last sync; null until the first full load
+    private LocalDateTime lastSyncAt;
+
+    // Rows already applied within the overlap window (id -> revoked_at)
+    private final Map<Long, LocalDateTime> recentlySynced = new ConcurrentHashMap<>();
+
+    // userId is the token's owner, resolved by the caller for tokens issued without the uid claim
+    public boolean isRevoked(Claims claims, Long userId) {
+        String jti = claims.getId();
+        if (jti != null && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (userCutoffs.isEmpty() || userId == null) {
+            return false;
+        }
+        Cutoff cutoff = userCutoffs.get(userId);
+        if (cutoff == null) {
+            return false;
+        }
+        // Without iat there is no telling when the token was issued, so a cutoff covers it
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.toInstant().getEpochSecond() <= cutoff.issuedUpTo;
+    }
+
+    public void revokeToken(String jti, Date expiration) {
+        LocalDateTime expiresAt = expiration != null
+                ? LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault())
+                : LocalDateTime.now().plus(jwtExpirationMs, ChronoUnit.MILLIS);
+        revokedTokenRepository.insertIfAbsent(jti, LocalDateTime.now(), expiresAt);
+        remember(jti, null, null, expiresAt);
+    }
+
+    // Marks a single-use token (a stream ticket) as used; false when it was used before, on any instance
+    public boolean useOnce(String jti, Date expiration) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+        return revokedTokenRepository.insertIfAbsent(jti, LocalDateTime.now(), expiresAt) == 1;
+    }
+
+    // Kills every token the user holds right now; tokens issued afterwards are unaffected
+    public void revokeAllForUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        RevokedToken saved = revokedTokenRepository.save(RevokedToken.builder()
+                .userId(userId)
+                .revokedAt(now)
+                .expiresAt(now.plus(jwtExpirationMs, ChronoUnit.MILLIS))
+                .build());
+        remember(null, userId, saved.getRevokedAt(), saved.getExpiresAt());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${rentconnect.auth.revocationSyncMs:30000}", initialDelay = 30000)
+    public synchronized void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        // Re-read a window before the previous sync so rows that committed late (or were
+        // stamped by an instance whose clock lags) are still picked up
+        LocalDateTime since = lastSyncAt != null ? lastSyncAt.minus(syncOverlap) : SYNC_EPOCH;
+        for (RevokedToken row : revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(since, now)) {
+            if (recentlySynced.putIfAbsent(row.getId(), row.getRevokedAt()) == null) {
+                remember(row.getJti(), row.getUserId(), row.getRevokedAt(), row.getExpiresAt());
+            }
+        }
+        recentlySynced.values().removeIf(revokedAt -> revokedAt.isBefore(since));
+        lastSyncAt = now;
+    }
+
+    @Scheduled(cron = "0 15 * * * *")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        userCutoffs.values().removeIf(cutoff -> cutoff.expiresAt < now);
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Purged {} expired token revocations", deleted);
+        }
+    }
+
+    private void remember(String jti, Long userId, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        long expiresAtMillis = toInstant(expiresAt).toEpochMilli();
+        if (jti != null) {
+            revokedTokens.put(jti, expiresAtMillis);
+        } else if (userId != null) {
+            // iat has second precision, so a token issued in the same second as the cutoff is revoked too
+            Cutoff cutoff = new Cutoff(toInstant(revokedAt).getEpochSecond(), expiresAtMillis);
+            userCutoffs.merge(userId, cutoff, (a, b) -> a.issuedUpTo >= b.issuedUpTo ? a : b);
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private record Cutoff(long issuedUpTo, long expiresAt) {
+    }
+}
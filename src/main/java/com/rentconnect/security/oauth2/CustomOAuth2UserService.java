@@ -2,13 +2,11 @@ package com.rentconnect.security.oauth2;
 
 import com.rentconnect.exception.OAuth2AuthenticationProcessingException;
 import com.rentconnect.model.AuthProvider;
-import com.rentconnect.model.ERole;
-import com.rentconnect.model.Role;
 import com.rentconnect.model.User;
-import com.rentconnect.repository.RoleRepository;
 import com.rentconnect.repository.UserRepository;
 import com.rentconnect.security.oauth2.user.OAuth2UserInfo;
 import com.rentconnect.security.oauth2.user.OAuth2UserInfoFactory;
+import com.rentconnect.security.services.UserDetailsCache;
 import com.rentconnect.security.services.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
@@ -22,9 +20,7 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Objects;
 
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
@@ -33,7 +29,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private UserDetailsCache userDetailsCache;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest oAuth2UserRequest) throws OAuth2AuthenticationException {
@@ -56,57 +52,51 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             throw new OAuth2AuthenticationProcessingException("Email not found from OAuth2 provider");
         }
 
-        Optional<User> userOptional = userRepository.findByEmail(oAuth2UserInfo.getEmail());
-        User user;
-        
-        if(userOptional.isPresent()) {
-            user = userOptional.get();
-            
-            if(!user.getProvider().equals(AuthProvider.valueOf(registrationId.toUpperCase()))) {
-                throw new OAuth2AuthenticationProcessingException("You're signed up with " + 
-                        user.getProvider() + " account. Please use your " + user.getProvider() + 
-                        " account to login.");
-            }
-            
-            user = updateExistingUser(user, oAuth2UserInfo);
-        } else {
-            user = registerNewUser(oAuth2UserRequest, oAuth2UserInfo);
+        AuthProvider provider = AuthProvider.valueOf(registrationId.toUpperCase());
+        User user = userRepository.findByEmail(oAuth2UserInfo.getEmail())
+                .orElseGet(() -> registerNewUser(provider, oAuth2UserInfo));
+
+        if(!user.getProvider().equals(provider)) {
+            throw new OAuth2AuthenticationProcessingException("You're signed up with " + 
+                    user.getProvider() + " account. Please use your " + user.getProvider() + 
+                    " account to login.");
         }
 
+        updateExistingUser(user, oAuth2UserInfo);
+
         return new CustomOAuth2User(UserDetailsImpl.build(user), oAuth2User.getAttributes());
     }
 
-    private User registerNewUser(OAuth2UserRequest oAuth2UserRequest, OAuth2UserInfo oAuth2UserInfo) {
-        User user = new User();
+    // ON CONFLICT makes concurrent first logins safe: the loser simply reads the winner's row
+    private User registerNewUser(AuthProvider provider, OAuth2UserInfo oAuth2UserInfo) {
+        userRepository.insertOAuth2UserIfAbsent(
+                oAuth2UserInfo.getEmail(),
+                oAuth2UserInfo.getFirstName(),
+                oAuth2UserInfo.getLastName(),
+                oAuth2UserInfo.getImageUrl(),
+                provider.name(),
+                oAuth2UserInfo.getId(),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM yyyy")));
 
-        user.setProvider(AuthProvider.valueOf(oAuth2UserRequest.getClientRegistration().getRegistrationId().toUpperCase()));
-        user.setProviderId(oAuth2UserInfo.getId());
-        user.setFirstName(oAuth2UserInfo.getFirstName());
-        user.setLastName(oAuth2UserInfo.getLastName());
-        user.setEmail(oAuth2UserInfo.getEmail());
-        user.setPicture(oAuth2UserInfo.getImageUrl());
-        
-        // Set default values for new users
-        user.setMemberSince(LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMMM yyyy")));
-        user.setResponseTime("Within a few hours");
-        user.setRating(0.0);
-        user.setReviewsCount(0);
-        
-        // Assign USER role
-        Set<Role> roles = new HashSet<>();
-        Role userRole = roleRepository.findByName(ERole.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-        roles.add(userRole);
-        user.setRoles(roles);
-        
-        return userRepository.save(user);
+        return userRepository.findByEmail(oAuth2UserInfo.getEmail())
+                .orElseThrow(() -> new OAuth2AuthenticationProcessingException("Could not create user account"));
     }
 
-    private User updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
+    // Writes (and invalidates cached details) only when the provider sent something new
+    private void updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
+        if (Objects.equals(existingUser.getFirstName(), oAuth2UserInfo.getFirstName())
+                && Objects.equals(existingUser.getLastName(), oAuth2UserInfo.getLastName())
+                && Objects.equals(existingUser.getPicture(), oAuth2UserInfo.getImageUrl())) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        userRepository.updateProfile(existingUser.getId(), oAuth2UserInfo.getFirstName(),
+                oAuth2UserInfo.getLastName(), oAuth2UserInfo.getImageUrl(), now);
         existingUser.setFirstName(oAuth2UserInfo.getFirstName());
         existingUser.setLastName(oAuth2UserInfo.getLastName());
         existingUser.setPicture(oAuth2UserInfo.getImageUrl());
-        return userRepository.save(existingUser);
+        existingUser.setUpdatedAt(now);
+        userDetailsCache.evict(existingUser.getEmail());
     }
 }
-
@@ -0,0 +1,150 @@
+package com.rentconnect.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rentconnect.dto.response.MessageResponse;
+import com.rentconnect.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token-bucket limiter keyed on the user id when the request is authenticated and on the
+// client address otherwise. Each bucket is a single AtomicLong holding its GCRA "theoretical
+// arrival time", so a request costs one CAS and no lock. Buckets live in a size-bounded
+// Caffeine cache and are dropped after a period of inactivity (an idle bucket is full anyway).
+// Runs after AuthTokenFilter so the principal is known.
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Value("${rentconnect.rateLimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rentconnect.rateLimit.maxClients:100000}")
+    private long maxClients;
+
+    @Value("${rentconnect.rateLimit.idleTimeout:10m}")
+    private Duration idleTimeout;
+
+    // Requests per minute for each route group; the same number is the burst size
+    @Value("${rentconnect.rateLimit.search:30}")
+    private int searchLimit;
+
+    @Value("${rentconnect.rateLimit.auth:20}")
+    private int authLimit;
+
+    @Value("${rentconnect.rateLimit.listings:120}")
+    private int listingsLimit;
+
+    @Value("${rentconnect.rateLimit.api:300}")
+    private int apiLimit;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<BucketKey, AtomicLong> buckets;
+
+    @PostConstruct
+    void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String group;
+        int limit;
+        if (path.startsWith("/api/listings/search")) {
+            group = "search";
+            limit = searchLimit;
+        } else if (path.startsWith("/api/auth/")) {
+            group = "auth";
+            limit = authLimit;
+        } else if (path.startsWith("/api/listings")) {
+            group = "listings";
+            limit = listingsLimit;
+        } else {
+            group = "api";
+            limit = apiLimit;
+        }
+
+        AtomicLong bucket = buckets.get(new BucketKey(group, clientKey(request)), key -> new AtomicLong(Long.MIN_VALUE));
+        long interval = WINDOW_NANOS / limit;
+        long burst = interval * limit;
+
+        long now = System.nanoTime();
+        long arrival;
+        long next;
+        boolean allowed;
+        do {
+            arrival = bucket.get();
+            // An empty slot or one in the past means the bucket has fully refilled
+            next = (arrival == Long.MIN_VALUE || arrival - now < 0 ? now : arrival) + interval;
+            allowed = next - now <= burst;
+        } while (allowed && !bucket.compareAndSet(arrival, next));
+
+        long backlog = allowed ? next - now : next - interval - now;
+        response.setHeader("RateLimit-Policy", limit + ";w=60");
+        response.setHeader("RateLimit-Limit", String.valueOf(limit));
+        response.setHeader("RateLimit-Remaining", String.valueOf(Math.max(0, (burst - backlog) / interval)));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(backlog)));
+
+        if (!allowed) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(next - now - burst)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    new MessageResponse("Error: Too many requests, please slow down"));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return "user:" + userDetails.getId();
+        }
+        // Behind a proxy this relies on server.forward-headers-strategy to resolve the real client
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(0, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private record BucketKey(String group, String client) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.rentconnect.security.services;
+
+import com.rentconnect.exception.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs BCrypt-heavy work (sign-in, sign-up) on a small dedicated pool so a login storm cannot
+// occupy every request thread. The queue is bounded; when it is full the caller gets a
+// HashingCapacityExceededException straight away and should answer 429.
+@Service
+public class PasswordHashingService {
+    @Value("${rentconnect.auth.hashingThreads:4}")
+    private int threads;
+
+    @Value("${rentconnect.auth.hashingQueueCapacity:64}")
+    private int queueCapacity;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing", List.of());
+        rejected = Counter.builder("rentconnect.password.hashing.rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // Timed end to end (queue wait included) as rentconnect.password.tasks{operation}
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        Timer timer = Timer.builder("rentconnect.password.tasks")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                    .whenComplete((result, error) -> sample.stop(timer));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingCapacityExceededException("Password hashing queue is full");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.rentconnect.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Size-bounded, TTL'd cache of UserDetailsImpl keyed by email, with an id index so writers
+// that only know the user id can evict. Hit/miss/eviction counts are published as the
+// "cache.*" metrics with cache=userDetails.
+@Component
+public class UserDetailsCache {
+    @Value("${rentconnect.auth.userCacheMaxSize:10000}")
+    private long maximumSize;
+
+    @Value("${rentconnect.auth.userCacheTtl:10m}")
+    private Duration ttl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, String> emailById = new ConcurrentHashMap<>();
+
+    private Cache<String, UserDetailsImpl> byEmail;
+
+    @PostConstruct
+    void init() {
+        byEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                // Run on the caller so the id index never outlives its entry
+                .executor(Runnable::run)
+                .removalListener((String email, UserDetailsImpl details, RemovalCause cause) -> {
+                    if (details != null) {
+                        emailById.remove(details.getId(), email);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "userDetails");
+    }
+
+    // The loader may throw; failures are not cached
+    public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+        return byEmail.get(email, key -> {
+            UserDetailsImpl details = loader.apply(key);
+            emailById.put(details.getId(), key);
+            return details;
+        });
+    }
+
+    public void evict(Long userId) {
+        String email = emailById.get(userId);
+        if (email != null) {
+            byEmail.invalidate(email);
+        }
+    }
+
+    public void evict(String email) {
+        byEmail.invalidate(email);
+    }
+}
@@ -4,23 +4,39 @@ import com.rentconnect.model.User;
 import com.rentconnect.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    UserDetailsCache userDetailsCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + email));
+        return userDetailsCache.get(email, key -> {
+            User user = userRepository.findByEmail(key)
+                    .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + key));
+            return UserDetailsImpl.build(user);
+        });
+    }
 
-        return UserDetailsImpl.build(user);
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash uses an older cost
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        userDetailsCache.evict(user.getUsername());
+
+        UserDetailsImpl details = (UserDetailsImpl) user;
+        return new UserDetailsImpl(details.getId(), details.getEmail(), newPassword, details.getFirstName(),
+                details.getLastName(), details.getPicture(), details.getAuthorities());
     }
 }
-
@@ -0,0 +1,66 @@
+package com.rentconnect.service;
+
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.ThreadParticipantRepository;
+import com.rentconnect.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Applies rating and earnings changes as single in-database increments so concurrent
+// writers never overwrite each other, and periodically recomputes everything (unread
+// message counters included) from the reviews/rentals/messages tables to repair any drift.
+@Service
+public class AggregateUpdateService {
+    private static final Logger logger = LoggerFactory.getLogger(AggregateUpdateService.class);
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThreadParticipantRepository threadParticipantRepository;
+
+    @Transactional
+    public void reviewAdded(Long listingId, Long ownerId, int rating) {
+        LocalDateTime now = LocalDateTime.now();
+        listingRepository.applyReviewDelta(listingId, rating, 1, now);
+        userRepository.applyReviewDelta(ownerId, rating, 1, now);
+    }
+
+    @Transactional
+    public void reviewRemoved(Long listingId, Long ownerId, int rating) {
+        LocalDateTime now = LocalDateTime.now();
+        listingRepository.applyReviewDelta(listingId, -rating, -1, now);
+        userRepository.applyReviewDelta(ownerId, -rating, -1, now);
+    }
+
+    @Transactional
+    public void rentalCompleted(Long listingId, double totalPrice) {
+        listingRepository.applyRentalDelta(listingId, 1, totalPrice, LocalDateTime.now());
+    }
+
+    @Transactional
+    public void rentalUncompleted(Long listingId, double totalPrice) {
+        listingRepository.applyRentalDelta(listingId, -1, -totalPrice, LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "${rentconnect.aggregates.reconcileCron}")
+    @Transactional
+    public void reconcile() {
+        int listings = listingRepository.reconcileAggregates();
+        int users = userRepository.reconcileAggregates();
+        int unread = userRepository.reconcileUnreadMessages() + threadParticipantRepository.reconcileUnreadCounts();
+        if (listings > 0 || users > 0 || unread > 0) {
+            logger.warn("Aggregate reconciliation repaired {} listings, {} users and {} unread counters",
+                    listings, users, unread);
+        }
+    }
+}
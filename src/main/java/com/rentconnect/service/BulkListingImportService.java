@@ -0,0 +1,268 @@
+package com.rentconnect.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.rentconnect.dto.request.BulkListingRow;
+import com.rentconnect.dto.response.BulkImportResponse;
+import com.rentconnect.event.ListingChangedEvent;
+import com.rentconnect.model.Listing;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Imports listings from a CSV or NDJSON stream. Rows are parsed and validated one at a time
+// and written in chunks with JDBC batch inserts. Listing ids come from the identity sequence
+// up front (IDENTITY generation rules out Hibernate batching), and slugs are handed out
+// from a per-base counter so a chunk needs one suffix query per distinct title.
+@Service
+public class BulkListingImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkListingImportService.class);
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_ROWS = 10000;
+
+    // Multi-valued CSV cells, e.g. "wifi|parking"
+    private static final String CSV_LIST_SEPARATOR = "\\|";
+    private static final Set<String> LIST_COLUMNS = Set.of("features", "images");
+
+    private static final String INSERT_LISTING = "INSERT INTO listings (id, title, description, price_per_day, " +
+            "security_deposit, location, category, price_unit, slug, owner_id, is_active, rating, rating_sum, " +
+            "reviews_count, rentals_count, total_earnings, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true, 0, 0, 0, 0, 0, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ListingSlugService listingSlugService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public BulkImportResponse importCsv(InputStream in, Long ownerId) throws IOException {
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        MappingIterator<Map<String, String>> rows = new CsvMapper()
+                .readerForMapOf(String.class)
+                .with(schema)
+                .readValues(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        return importRows(() -> {
+            Map<String, String> cells;
+            try {
+                if (!rows.hasNextValue()) {
+                    return null;
+                }
+                cells = rows.nextValue();
+            } catch (JsonProcessingException e) {
+                // Broken CSV framing cannot be resynchronised, so this ends the import
+                throw new IOException(e.getOriginalMessage(), e);
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            for (Map.Entry<String, String> cell : cells.entrySet()) {
+                String column = cell.getKey().trim();
+                String value = cell.getValue() == null ? "" : cell.getValue().trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if (LIST_COLUMNS.contains(column)) {
+                    ArrayNode values = node.putArray(column);
+                    Arrays.stream(value.split(CSV_LIST_SEPARATOR)).map(String::trim).forEach(values::add);
+                } else {
+                    node.put(column, value);
+                }
+            }
+            return node;
+        }, ownerId);
+    }
+
+    public BulkImportResponse importNdjson(InputStream in, Long ownerId) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return importRows(() -> {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            return line == null ? null : objectMapper.readTree(line);
+        }, ownerId);
+    }
+
+    private BulkImportResponse importRows(RowSource source, Long ownerId) {
+        BulkImportResponse response = new BulkImportResponse();
+        Map<String, Integer> nextSuffixes = new HashMap<>();
+        List<PendingRow> chunk = new ArrayList<>();
+
+        for (int rowNumber = 1; ; rowNumber++) {
+            JsonNode node;
+            try {
+                node = source.next();
+            } catch (JsonProcessingException e) {
+                // A bad NDJSON line only costs that row; the reader is already past it
+                response.addFailed(rowNumber, List.of("Malformed row: " + e.getOriginalMessage()));
+                continue;
+            } catch (IOException e) {
+                // Rows read so far are still imported
+                response.addFailed(rowNumber, List.of("Could not read input: " + e.getMessage()));
+                break;
+            }
+            if (node == null) {
+                break;
+            }
+            if (rowNumber > MAX_ROWS) {
+                response.addFailed(rowNumber, List.of("Row limit of " + MAX_ROWS + " exceeded; remaining rows ignored"));
+                break;
+            }
+
+            BulkListingRow row;
+            try {
+                row = objectMapper.treeToValue(node, BulkListingRow.class);
+            } catch (JsonProcessingException e) {
+                response.addFailed(rowNumber, List.of("Invalid value: " + e.getOriginalMessage()));
+                continue;
+            }
+
+            Set<ConstraintViolation<BulkListingRow>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                List<String> errors = new ArrayList<>();
+                for (ConstraintViolation<BulkListingRow> violation : violations) {
+                    errors.add(violation.getPropertyPath() + " " + violation.getMessage());
+                }
+                response.addFailed(rowNumber, errors);
+                continue;
+            }
+
+            chunk.add(new PendingRow(rowNumber, row));
+            if (chunk.size() == CHUNK_SIZE) {
+                flush(chunk, ownerId, nextSuffixes, response);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, ownerId, nextSuffixes, response);
+        }
+
+        response.getRows().sort(Comparator.comparingInt(BulkImportResponse.RowResult::getRow));
+        return response;
+    }
+
+    private void flush(List<PendingRow> chunk, Long ownerId, Map<String, Integer> nextSuffixes,
+                       BulkImportResponse response) {
+        List<Listing> saved = null;
+        for (int attempt = 1; attempt <= 2 && saved == null; attempt++) {
+            try {
+                saved = insertChunk(chunk, ownerId, nextSuffixes);
+            } catch (DataIntegrityViolationException e) {
+                // Most likely a concurrent create took one of our slugs: re-read the suffixes and retry once
+                for (PendingRow pending : chunk) {
+                    nextSuffixes.remove(listingSlugService.toBaseSlug(pending.row.getTitle()));
+                }
+                logger.warn("Bulk import chunk rejected (attempt {}): {}", attempt, e.getMessage());
+            } catch (DataAccessException e) {
+                logger.warn("Bulk import chunk failed: {}", e.getMessage());
+                break;
+            } catch (RuntimeException e) {
+                // Earlier chunks are committed already, so report these rows rather than fail the request
+                logger.error("Bulk import chunk failed unexpectedly", e);
+                break;
+            }
+        }
+        if (saved == null) {
+            for (PendingRow pending : chunk) {
+                response.addFailed(pending.rowNumber, List.of("Could not be saved"));
+            }
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Listing listing = saved.get(i);
+            response.addCreated(chunk.get(i).rowNumber, listing.getId(), listing.getSlug());
+            eventPublisher.publishEvent(new ListingChangedEvent(listing, ListingChangedEvent.Type.CREATED));
+        }
+    }
+
+    private List<Listing> insertChunk(List<PendingRow> chunk, Long ownerId, Map<String, Integer> nextSuffixes) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT nextval(pg_get_serial_sequence('listings', 'id')) FROM generate_series(1, ?)",
+                    Long.class, chunk.size());
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Listing> listings = new ArrayList<>();
+            List<Object[]> listingArgs = new ArrayList<>();
+            List<Object[]> featureArgs = new ArrayList<>();
+            List<Object[]> imageArgs = new ArrayList<>();
+
+            for (int i = 0; i < chunk.size(); i++) {
+                BulkListingRow row = chunk.get(i).row;
+                Long id = ids.get(i);
+                String base = listingSlugService.toBaseSlug(row.getTitle());
+                int suffix = nextSuffixes.computeIfAbsent(base, listingSlugService::firstFreeSuffix);
+                nextSuffixes.put(base, suffix + 1);
+                String slug = listingSlugService.withSuffix(base, suffix);
+
+                listingArgs.add(new Object[]{id, row.getTitle(), row.getDescription(), row.getPricePerDay(),
+                        row.getSecurityDeposit(), row.getLocation(), row.getCategory(), row.getPriceUnit(),
+                        slug, ownerId, now, now});
+                for (String feature : row.getFeatures()) {
+                    featureArgs.add(new Object[]{id, feature});
+                }
+                List<String> images = row.getImages();
+                for (int order = 0; order < images.size(); order++) {
+                    imageArgs.add(new Object[]{id, images.get(order), order});
+                }
+
+                listings.add(Listing.builder()
+                        .id(id)
+                        .title(row.getTitle())
+                        .description(row.getDescription())
+                        .slug(slug)
+                        .isActive(true)
+                        .build());
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_LISTING, listingArgs);
+            jdbcTemplate.batchUpdate("INSERT INTO listing_features (listing_id, feature) VALUES (?, ?)", featureArgs);
+            jdbcTemplate.batchUpdate("INSERT INTO listing_images (listing_id, image_url, image_order) VALUES (?, ?, ?)", imageArgs);
+            return listings;
+        });
+    }
+
+    private interface RowSource {
+        // Next row as a JSON object, or null at the end of the input
+        JsonNode next() throws IOException;
+    }
+
+    private record PendingRow(int rowNumber, BulkListingRow row) {
+    }
+}
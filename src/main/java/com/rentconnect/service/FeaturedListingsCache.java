@@ -0,0 +1,121 @@
+package com.rentconnect.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentconnect.event.ListingChangedEvent;
+import com.rentconnect.repository.ListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The featured feed kept as ready-to-send JSON bytes. Listing changes bump a generation
+// and start a rebuild in the background; readers keep getting the previous bytes until the
+// new ones are in. Only one rebuild runs at a time, so a burst of requests costs one query.
+@Service
+public class FeaturedListingsCache {
+    private static final Logger logger = LoggerFactory.getLogger(FeaturedListingsCache.class);
+
+    private static final int FEATURED_COUNT = 8;
+
+    // Card ratings change through reviews, which publish no listing event
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private ListingCardService listingCardService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor executor;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicReference<CompletableFuture<byte[]>> inFlight = new AtomicReference<>();
+
+    private volatile Entry current;
+
+    public byte[] get() {
+        Entry entry = current;
+        if (entry == null) {
+            // Nothing to serve yet: wait for the (shared) rebuild
+            return refresh().join();
+        }
+        if (entry.generation != generation.get() || entry.builtAt.plus(MAX_AGE).isBefore(Instant.now())) {
+            refresh();
+        }
+        return entry.json;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        generation.incrementAndGet();
+        refresh();
+    }
+
+    // Starts a rebuild unless one is already running, and returns the running one
+    private CompletableFuture<byte[]> refresh() {
+        while (true) {
+            CompletableFuture<byte[]> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<byte[]> next = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, next)) {
+                try {
+                    executor.execute(() -> rebuild(next));
+                } catch (RejectedExecutionException e) {
+                    finish(next, null, e);
+                }
+                return next;
+            }
+        }
+    }
+
+    private void rebuild(CompletableFuture<byte[]> future) {
+        // A change arriving mid-rebuild leaves this entry one generation behind, so it gets rebuilt again
+        long builtGeneration = generation.get();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(listingCardService.toResponses(
+                    listingRepository.findNewestActiveCards(Limit.of(FEATURED_COUNT))));
+            current = new Entry(json, builtGeneration, Instant.now());
+            finish(future, json, null);
+        } catch (Exception e) {
+            logger.warn("Could not rebuild featured listings: {}", e.getMessage());
+            finish(future, null, e);
+        }
+    }
+
+    private void finish(CompletableFuture<byte[]> future, byte[] json, Throwable error) {
+        inFlight.compareAndSet(future, null);
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(json);
+        }
+    }
+
+    private record Entry(byte[] json, long generation, Instant builtAt) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.rentconnect.service;
+
+import com.rentconnect.dto.response.ListingCardResponse;
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.projection.ListingCard;
+import com.rentconnect.repository.projection.ListingImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Builds the card view used by the listing feeds: one projection query for the cards
+// (owner columns joined in) and one query for the cover images of the whole page, which
+// returns only the first image of each listing.
+@Service
+public class ListingCardService {
+    @Autowired
+    private ListingRepository listingRepository;
+
+    public List<ListingCardResponse> toResponses(List<ListingCard> cards) {
+        if (cards.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = cards.stream().map(ListingCard::getId).collect(Collectors.toList());
+        Map<Long, String> coverImages = new HashMap<>();
+        for (ListingImage image : listingRepository.findCoverImagesByListingIdIn(ids)) {
+            coverImages.put(image.getListingId(), image.getImageUrl());
+        }
+
+        return cards.stream()
+                .map(card -> ListingCardResponse.from(card, coverImages.get(card.getId())))
+                .collect(Collectors.toList());
+    }
+
+    // Loads cards for the given ids, keeping the order of the ids
+    public List<ListingCardResponse> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, ListingCard> byId = listingRepository.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ListingCard::getId, Function.identity()));
+        List<ListingCard> ordered = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return toResponses(ordered);
+    }
+}
@@ -0,0 +1,55 @@
+package com.rentconnect.service;
+
+import com.rentconnect.model.Listing;
+import com.rentconnect.repository.ListingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+// Picks "<base>", "<base>-1", "<base>-2", ... with a single query for the highest suffix
+// in use, instead of probing each candidate. Two concurrent creates can still pick the same
+// slug; the loser hits the unique constraint and retries with a fresh suffix.
+@Service
+public class ListingSlugService {
+    private static final int MAX_ATTEMPTS = 5;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    public String toBaseSlug(String title) {
+        String slug = title == null ? "" : title.toLowerCase()
+                .replaceAll("[^a-z0-9\\s]", "")
+                .trim()
+                .replaceAll("\\s+", "-");
+        return slug.isEmpty() ? "listing" : slug;
+    }
+
+    public String nextFreeSlug(String base) {
+        return withSuffix(base, firstFreeSuffix(base));
+    }
+
+    // 0 means the bare base is free; callers handing out several slugs count up from here
+    public int firstFreeSuffix(String base) {
+        return listingRepository.findMaxSlugSuffix(base) + 1;
+    }
+
+    public String withSuffix(String base, int suffix) {
+        return suffix == 0 ? base : base + "-" + suffix;
+    }
+
+    // Saves a new listing under a free slug derived from its title
+    public Listing saveWithUniqueSlug(Listing listing) {
+        String base = toBaseSlug(listing.getTitle());
+        for (int attempt = 1; ; attempt++) {
+            listing.setSlug(nextFreeSlug(base));
+            try {
+                return listingRepository.save(listing);
+            } catch (DataIntegrityViolationException e) {
+                // Only a lost race on the slug is worth retrying
+                if (attempt >= MAX_ATTEMPTS || !listingRepository.existsBySlug(listing.getSlug())) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
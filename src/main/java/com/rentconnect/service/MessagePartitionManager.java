@@ -0,0 +1,225 @@
+package com.rentconnect.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Keeps the monthly partitions of "messages" in shape once the table has been converted
+// with db/partition-messages.sql (on an unpartitioned table this does nothing). Creates the
+// partitions for the coming months ahead of time, so inserts never land in the default
+// partition, and optionally detaches partitions past the retention period into the archive
+// schema, where they can be dumped and dropped without touching the live table. The detach
+// runs on its own, outside any transaction, as DETACH PARTITION ... CONCURRENTLY, so reads and
+// writes on messages carry on while it waits for them. Postgres refuses that while a default
+// partition exists, so then a plain DETACH runs in a transaction of its own. Either way a lock
+// timeout makes it give up, and retry next run, rather than queue every query on messages
+// behind it. Thread snapshots and unread counters that referred to archived messages are
+// then recomputed from the messages that remain in a separate transaction.
+@Service
+public class MessagePartitionManager {
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitionManager.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("messages_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Arbitrary constant shared by all instances so only one of them runs the DDL at a time
+    private static final long LOCK_KEY = 0x6d657373616765L;
+
+    @Value("${rentconnect.messages.partitions.monthsAhead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${rentconnect.messages.partitions.retentionMonths:0}")
+    private int retentionMonths;
+
+    @Value("${rentconnect.messages.partitions.archiveSchema:archive}")
+    private String archiveSchema;
+
+    @Value("${rentconnect.messages.partitions.detachLockTimeout:5s}")
+    private Duration detachLockTimeout;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rentconnect.messages.partitions.maintenanceCron:0 15 2 * * *}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                logger.debug("messages is not partitioned; nothing to maintain");
+                return;
+            }
+            // A session lock, held on this connection while the steps below run in their own
+            // transactions (or none) on others
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    return null;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> createAhead(YearMonth.now()));
+                    if (retentionMonths > 0) {
+                        archiveBefore(YearMonth.now().minusMonths(retentionMonths));
+                    }
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Message partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+                "WHERE c.relname = 'messages' AND c.relnamespace = current_schema()::regnamespace",
+                Integer.class);
+        return count != null && count > 0;
+    }
+
+    private void createAhead(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            // Fails if the default partition already holds rows for this month; that needs a manual move
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF messages " +
+                    "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private void archiveBefore(YearMonth cutoff) {
+        // Partitions of messages, plus tables left in this schema by a run that detached a
+        // partition but failed before archiving it
+        List<Map<String, Object>> tables = jdbcTemplate.queryForList(
+                "SELECT c.relname, i.inhrelid IS NOT NULL AS attached, COALESCE(i.inhdetachpending, false) AS pending " +
+                "FROM pg_class c LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = 'messages'::regclass " +
+                "WHERE c.relnamespace = current_schema()::regnamespace AND c.relkind = 'r' " +
+                "AND c.relname LIKE 'messages\\_p%'");
+        boolean hasDefault = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT partdefid <> 0 FROM pg_partitioned_table WHERE partrelid = 'messages'::regclass", Boolean.class));
+
+        for (Map<String, Object> table : tables) {
+            String partition = (String) table.get("relname");
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                if (Boolean.TRUE.equals(table.get("attached"))) {
+                    detach(partition, hasDefault, Boolean.TRUE.equals(table.get("pending")));
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not detach message partition {}, will retry next run: {}", partition, e.getMessage());
+                continue;
+            }
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+                recomputeAfterArchive(archiveSchema + "." + partition);
+            });
+            logger.info("Archived message partition {} to schema {}", partition, archiveSchema);
+        }
+    }
+
+    private void detach(String partition, boolean hasDefault, boolean pending) {
+        String lockTimeout = "'" + detachLockTimeout.toMillis() + "ms'";
+        if (hasDefault && !pending) {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout);
+                jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partition);
+            });
+            return;
+        }
+        // CONCURRENTLY cannot run inside a transaction block, so this goes straight to one
+        // connection in autocommit; an earlier run cut short leaves the detach pending, and
+        // FINALIZE completes it
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = " + lockTimeout);
+                try {
+                    statement.execute("ALTER TABLE messages DETACH PARTITION " + partition +
+                            (pending ? " FINALIZE" : " CONCURRENTLY"));
+                } finally {
+                    statement.execute("RESET lock_timeout");
+                }
+            }
+            return null;
+        });
+    }
+
+    private void recomputeAfterArchive(String archived) {
+        // Threads whose latest message was archived point at the newest one left; a thread with
+        // nothing left keeps its last_message_at so it holds its place in the inbox
+        int threads = jdbcTemplate.update("UPDATE message_threads t SET last_message_id = m.id, " +
+                "last_sender_id = m.sender_id, last_message_preview = left(m.content, 200), " +
+                "last_message_at = COALESCE(m.created_at, t.last_message_at) " +
+                "FROM message_threads t2 LEFT JOIN LATERAL (SELECT id, sender_id, content, created_at FROM messages " +
+                "WHERE thread_id = t2.id ORDER BY created_at DESC, id DESC LIMIT 1) m ON true " +
+                "WHERE t2.id = t.id AND t.last_message_id IN (SELECT id FROM " + archived + ")");
+
+        int participants = jdbcTemplate.update("UPDATE thread_participants p SET unread_count = " +
+                "(SELECT COUNT(*) FROM messages m WHERE m.thread_id = p.thread_id AND m.recipient_id = p.user_id " +
+                "AND m.is_read = false) " +
+                "WHERE (p.thread_id, p.user_id) IN " +
+                "(SELECT thread_id, recipient_id FROM " + archived + " WHERE is_read = false)");
+
+        int users = jdbcTemplate.update("UPDATE users u SET unread_messages = " +
+                "(SELECT COUNT(*) FROM messages m WHERE m.recipient_id = u.id AND m.is_read = false) " +
+                "WHERE u.id IN (SELECT recipient_id FROM " + archived + " WHERE is_read = false)");
+
+        logger.info("Recomputed {} thread snapshots, {} participant and {} user unread counts after archiving {}",
+                threads, participants, users, archived);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "messages_p" + month.format(NAME_FORMAT);
+    }
+}
@@ -0,0 +1,144 @@
+package com.rentconnect.service;
+
+import com.rentconnect.dto.request.MarkReadRequest;
+import com.rentconnect.model.Message;
+import com.rentconnect.model.MessageThread;
+import com.rentconnect.repository.MessageRepository;
+import com.rentconnect.repository.MessageThreadRepository;
+import com.rentconnect.repository.ThreadParticipantRepository;
+import com.rentconnect.repository.UserRepository;
+import com.rentconnect.repository.projection.DeletedMessageCount;
+import com.rentconnect.repository.projection.ThreadReadCount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Message writes that move the recipient's unread counters (per user and per thread) and
+// the thread snapshot. Each counter change is tied to a statement that really changed a
+// message (insert, unread -> read, delete of an unread row), in the same transaction, so
+// concurrent requests cannot count twice.
+@Service
+public class MessageService {
+    private static final int PREVIEW_LENGTH = 200;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MessageThreadRepository messageThreadRepository;
+
+    @Autowired
+    private ThreadParticipantRepository threadParticipantRepository;
+
+    @Transactional
+    public Message send(Message message) {
+        Long senderId = message.getSender().getId();
+        Long recipientId = message.getRecipient().getId();
+        Long listingId = message.getListing() != null ? message.getListing().getId() : null;
+        MessageThread thread = findOrCreateThread(senderId, recipientId, listingId);
+
+        message.setThreadId(thread.getId());
+        message.setIsRead(false);
+        Message savedMessage = messageRepository.save(message);
+
+        LocalDateTime sentAt = savedMessage.getCreatedAt() != null ? savedMessage.getCreatedAt() : LocalDateTime.now();
+        String content = savedMessage.getContent();
+        String preview = content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) : content;
+        messageThreadRepository.updateSnapshot(thread.getId(), savedMessage.getId(), senderId, preview, sentAt);
+        threadParticipantRepository.recordMessage(thread.getId(), recipientId, sentAt);
+        userRepository.adjustUnreadMessages(recipientId, 1);
+        return savedMessage;
+    }
+
+    // True if this call marked the message read
+    @Transactional
+    public boolean markRead(Message message, Long recipientId) {
+        if (messageRepository.markRead(message.getId(), recipientId) == 0) {
+            return false;
+        }
+        userRepository.adjustUnreadMessages(recipientId, -1);
+        if (message.getThreadId() != null) {
+            threadParticipantRepository.decrementUnread(message.getThreadId(), recipientId, 1);
+        }
+        return true;
+    }
+
+    // Returns how many messages were marked read
+    @Transactional
+    public int markReadUpTo(Long userId, MarkReadRequest request) {
+        Long upToId = request.getUpToId() != null ? request.getUpToId() : Long.MAX_VALUE;
+        // Without a bound, messages arriving while this runs stay unread
+        LocalDateTime upTo = request.getUpTo() != null ? request.getUpTo() : LocalDateTime.now();
+
+        int marked = 0;
+        for (ThreadReadCount threadCount : messageRepository.markReadUpTo(userId, request.getThreadId(), upToId, upTo)) {
+            int count = threadCount.getCount().intValue();
+            if (threadCount.getThreadId() != null) {
+                threadParticipantRepository.decrementUnread(threadCount.getThreadId(), userId, count);
+            }
+            marked += count;
+        }
+        if (marked > 0) {
+            userRepository.adjustUnreadMessages(userId, -marked);
+        }
+        return marked;
+    }
+
+    @Transactional
+    public BulkDeleteResult deleteForUser(Long userId, Collection<Long> messageIds) {
+        int deleted = 0;
+        Set<Long> threadIds = new HashSet<>();
+        Map<Long, Integer> unreadByRecipient = new HashMap<>();
+        for (DeletedMessageCount group : messageRepository.deleteForUser(messageIds, userId)) {
+            deleted += group.getTotal().intValue();
+            int unread = group.getUnread().intValue();
+            if (group.getThreadId() != null) {
+                threadIds.add(group.getThreadId());
+                if (unread > 0) {
+                    threadParticipantRepository.decrementUnread(group.getThreadId(), group.getRecipientId(), unread);
+                }
+            }
+            if (unread > 0) {
+                unreadByRecipient.merge(group.getRecipientId(), unread, Integer::sum);
+            }
+        }
+
+        unreadByRecipient.forEach((recipientId, unread) -> userRepository.adjustUnreadMessages(recipientId, -unread));
+        if (!threadIds.isEmpty()) {
+            messageThreadRepository.refreshStaleSnapshots(threadIds);
+        }
+        return new BulkDeleteResult(deleted, unreadByRecipient.keySet());
+    }
+
+    public int getUnreadCount(Long userId) {
+        return userRepository.findUnreadMessages(userId);
+    }
+
+    // recipientsWithUnreadChanges: users whose unread count went down
+    public record BulkDeleteResult(int deleted, Set<Long> recipientsWithUnreadChanges) {
+    }
+
+    private MessageThread findOrCreateThread(Long senderId, Long recipientId, Long listingId) {
+        String threadKey = MessageThread.key(senderId, recipientId, listingId);
+        return messageThreadRepository.findByThreadKey(threadKey).orElseGet(() -> {
+            Long userLowId = Math.min(senderId, recipientId);
+            Long userHighId = Math.max(senderId, recipientId);
+            messageThreadRepository.insertIfAbsent(threadKey, userLowId, userHighId, listingId);
+            MessageThread thread = messageThreadRepository.findByThreadKey(threadKey)
+                    .orElseThrow(() -> new IllegalStateException("Thread " + threadKey + " was not created"));
+            threadParticipantRepository.insertIfAbsent(thread.getId(), userLowId);
+            threadParticipantRepository.insertIfAbsent(thread.getId(), userHighId);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package com.rentconnect.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentconnect.event.RelayedStreamEvent;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+// Carries message stream events between instances with Postgres LISTEN/NOTIFY, so a user
+// whose stream is open on one instance hears about messages sent or read through another.
+// Payloads only hold ids and counts (NOTIFY caps them at 8000 bytes); the receiving instance
+// loads the message itself. Delivery is best effort: notifications sent while the listener
+// is reconnecting are lost, and the client catches up from the next "unread" event or when
+// it reconnects. Off on anything but PostgreSQL.
+@Service
+public class MessageStreamRelay {
+    private static final Logger logger = LoggerFactory.getLogger(MessageStreamRelay.class);
+
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    @Value("${rentconnect.messages.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rentconnect.messages.relay.channel:message_stream}")
+    private String channel;
+
+    // How long the listener waits for notifications before checking its connection is alive
+    @Value("${rentconnect.messages.relay.pollMs:10000}")
+    private int pollMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Lets an instance skip its own notifications, which it has already delivered locally
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile boolean active;
+
+    private volatile Connection listenConnection;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || !isPostgres()) {
+            logger.info("Message stream relay is off; stream events reach only this instance's clients");
+            return;
+        }
+        active = true;
+        Thread listener = new Thread(this::listen, "message-stream-relay");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        active = false;
+        closeQuietly(listenConnection);
+    }
+
+    public void relay(RelayedStreamEvent.Type type, Long userId, Long messageId, long unreadCount) {
+        if (!active) {
+            return;
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(
+                    new Payload(instanceId, type, userId, messageId, unreadCount));
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+        } catch (JsonProcessingException | DataAccessException e) {
+            logger.warn("Could not relay {} event for user {}: {}", type, userId, e.getMessage());
+        }
+    }
+
+    // Runs on its own thread with a connection outside the pool, which it holds for as long
+    // as it listens
+    private void listen() {
+        long backoff = 1000;
+        while (active) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listenConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                backoff = 1000;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (active) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications == null) {
+                        // Nothing arrived; a round trip notices a connection that died quietly
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!active) {
+                    break;
+                }
+                logger.warn("Message stream relay lost its connection, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void receive(String json) {
+        try {
+            Payload payload = objectMapper.readValue(json, Payload.class);
+            if (instanceId.equals(payload.origin())) {
+                return;
+            }
+            eventPublisher.publishEvent(new RelayedStreamEvent(payload.type(), payload.userId(),
+                    payload.messageId(), payload.unreadCount()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // One bad notification must not stop the listener
+            logger.warn("Ignored message stream notification {}: {}", json, e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() {
+        try {
+            return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+        } catch (DataAccessException e) {
+            logger.warn("Could not determine the database for the message stream relay: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Shutting down anyway
+        }
+    }
+
+    private record Payload(String origin, RelayedStreamEvent.Type type, Long userId, Long messageId,
+                           long unreadCount) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.rentconnect.service;
+
+import com.rentconnect.event.RelayedStreamEvent;
+import com.rentconnect.model.Message;
+import com.rentconnect.repository.MessageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Open /api/messages/stream connections per user. Emitters are async requests, so an idle
+// client holds no thread, only its entry here. The total and per-user counts are capped, a
+// heartbeat every few seconds finds dead connections, and every emitter has a timeout
+// after which the browser's EventSource reconnects on its own. Emitters only exist on the
+// instance the client connected to; events published here are also handed to
+// MessageStreamRelay, which delivers them to the other instances' clients.
+@Service
+public class MessageStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(MessageStreamService.class);
+
+    @Value("${rentconnect.messages.maxStreams:10000}")
+    private int maxStreams;
+
+    @Value("${rentconnect.messages.maxStreamsPerUser:5}")
+    private int maxStreamsPerUser;
+
+    @Value("${rentconnect.messages.streamTimeout:30m}")
+    private Duration streamTimeout;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MessageStreamRelay messageStreamRelay;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor executor;
+
+    private final Map<Long, List<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("rentconnect.messages.streams", openStreams, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Returns null when the server is at capacity
+    public SseEmitter open(Long userId) {
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        List<SseEmitter> emitters = emittersByUser.compute(userId, (id, existing) -> {
+            List<SseEmitter> list = existing != null ? existing : new CopyOnWriteArrayList<>();
+            list.add(emitter);
+            return list;
+        });
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(userId, emitter));
+
+        // Another tab opened one too many: drop the oldest of this user's connections
+        if (emitters.size() > maxStreamsPerUser) {
+            emitters.get(0).complete();
+        }
+        return emitter;
+    }
+
+    public void publishMessage(Long recipientId, Message message, long unreadCount) {
+        publish(recipientId, "message", toEvent(message));
+        publish(recipientId, "unread", Map.of("unreadCount", unreadCount));
+        messageStreamRelay.relay(RelayedStreamEvent.Type.MESSAGE, recipientId, message.getId(), unreadCount);
+    }
+
+    public void publishUnreadCount(Long userId, long unreadCount) {
+        publish(userId, "unread", Map.of("unreadCount", unreadCount));
+        messageStreamRelay.relay(RelayedStreamEvent.Type.UNREAD, userId, null, unreadCount);
+    }
+
+    // Published on another instance; only matters if the user has a stream open here
+    @EventListener
+    public void onRelayed(RelayedStreamEvent event) {
+        if (!emittersByUser.containsKey(event.getUserId())) {
+            return;
+        }
+        if (event.getType() == RelayedStreamEvent.Type.MESSAGE) {
+            messageRepository.findById(event.getMessageId())
+                    .ifPresent(message -> publish(event.getUserId(), "message", toEvent(message)));
+        }
+        publish(event.getUserId(), "unread", Map.of("unreadCount", event.getUnreadCount()));
+    }
+
+    private static MessageEvent toEvent(Message message) {
+        return new MessageEvent(message.getId(), message.getSender().getId(),
+                message.getSender().getFirstName(), message.getSender().getLastName(),
+                message.getListing() != null ? message.getListing().getId() : null,
+                message.getSubject(), message.getContent(), message.getCreatedAt());
+    }
+
+    // Sends happen off the request thread so a slow client never delays the sender
+    private void publish(Long userId, String name, Object data) {
+        List<SseEmitter> emitters = emittersByUser.get(userId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                for (SseEmitter emitter : emitters) {
+                    send(userId, emitter, SseEmitter.event().name(name).data(data));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Dropped {} event for user {}: {}", name, userId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rentconnect.messages.heartbeatMs:25000}")
+    public void heartbeat() {
+        emittersByUser.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                send(userId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone; completing the emitter frees the async request as well
+            remove(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                openStreams.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private record MessageEvent(Long id, Long senderId, String senderFirstName, String senderLastName,
+                                Long listingId, String subject, String content, LocalDateTime createdAt) {
+    }
+}
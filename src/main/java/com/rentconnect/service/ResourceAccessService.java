@@ -0,0 +1,129 @@
+package com.rentconnect.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.MessageRepository;
+import com.rentconnect.repository.RentalRepository;
+import com.rentconnect.repository.ReviewRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// Ownership checks without loading entities. Each resource maps to the ids of the users tied
+// to it (listing owner, review author, renter and listing owner, sender and recipient), read
+// with one primary-key lookup, so a single query tells a missing resource from a foreign one.
+// Those ids never change once the row exists, which makes them safe to cache; deletes evict,
+// and a handler that finds the row gone after ALLOWED still answers 404.
+@Service
+public class ResourceAccessService {
+    public enum Access {
+        ALLOWED,
+        FORBIDDEN,
+        NOT_FOUND
+    }
+
+    private enum Kind {
+        LISTING,
+        RENTAL,
+        REVIEW,
+        MESSAGE
+    }
+
+    @Value("${rentconnect.access.cacheMaxSize:100000}")
+    private long maximumSize;
+
+    @Value("${rentconnect.access.cacheTtl:30m}")
+    private Duration ttl;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Rentals hold [renter, listing owner], messages [sender, recipient]; missing rows are not cached
+    private Cache<Key, List<Long>> parties;
+
+    @PostConstruct
+    void init() {
+        parties = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, parties, "resourceAccess");
+    }
+
+    public Access listingOwner(Long listingId, Long userId) {
+        return check(lookup(Kind.LISTING, listingId, id -> listingRepository.findOwnerIdById(id)
+                .map(List::of).orElse(null)), userId);
+    }
+
+    public Access reviewAuthor(Long reviewId, Long userId) {
+        return check(lookup(Kind.REVIEW, reviewId, id -> reviewRepository.findUserIdById(id)
+                .map(List::of).orElse(null)), userId);
+    }
+
+    public Access rentalParticipant(Long rentalId, Long userId) {
+        return check(rental(rentalId), userId);
+    }
+
+    public Access rentalListingOwner(Long rentalId, Long userId) {
+        List<Long> rental = rental(rentalId);
+        return check(rental != null ? rental.subList(1, 2) : null, userId);
+    }
+
+    public Access messageParticipant(Long messageId, Long userId) {
+        return check(lookup(Kind.MESSAGE, messageId, id -> messageRepository.findPartiesById(id)
+                .map(m -> List.of(m.getSenderId(), m.getRecipientId())).orElse(null)), userId);
+    }
+
+    public void listingDeleted(Long listingId) {
+        parties.invalidate(new Key(Kind.LISTING, listingId));
+    }
+
+    public void reviewDeleted(Long reviewId) {
+        parties.invalidate(new Key(Kind.REVIEW, reviewId));
+    }
+
+    public void messagesDeleted(Collection<Long> messageIds) {
+        parties.invalidateAll(messageIds.stream().map(id -> new Key(Kind.MESSAGE, id)).toList());
+    }
+
+    private List<Long> rental(Long rentalId) {
+        return lookup(Kind.RENTAL, rentalId, id -> rentalRepository.findPartiesById(id)
+                .map(r -> List.of(r.getRenterId(), r.getOwnerId())).orElse(null));
+    }
+
+    private List<Long> lookup(Kind kind, Long id, Function<Long, List<Long>> loader) {
+        return parties.get(new Key(kind, id), key -> loader.apply(key.id()));
+    }
+
+    private static Access check(List<Long> userIds, Long userId) {
+        if (userIds == null) {
+            return Access.NOT_FOUND;
+        }
+        return userIds.contains(userId) ? Access.ALLOWED : Access.FORBIDDEN;
+    }
+
+    private record Key(Kind kind, Long id) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.rentconnect.service;
+
+import com.rentconnect.model.Listing;
+import com.rentconnect.model.Review;
+import com.rentconnect.repository.ReviewRepository;
+import com.rentconnect.repository.projection.RemovedReview;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Review writes together with the listing and owner rating deltas they cause, so a review
+// never commits without its aggregate change (or the other way round).
+@Service
+public class ReviewService {
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private AggregateUpdateService aggregateUpdateService;
+
+    @Transactional
+    public Review create(Review review) {
+        Review savedReview = reviewRepository.save(review);
+        Listing listing = savedReview.getListing();
+        aggregateUpdateService.reviewAdded(listing.getId(), listing.getOwner().getId(), savedReview.getRating());
+        return savedReview;
+    }
+
+    // Empty when the review was already gone
+    @Transactional
+    public Optional<RemovedReview> delete(Long reviewId) {
+        Optional<RemovedReview> removed = reviewRepository.deleteReturningRating(reviewId);
+        removed.ifPresent(review ->
+                aggregateUpdateService.reviewRemoved(review.getListingId(), review.getOwnerId(), review.getRating()));
+        return removed;
+    }
+}
@@ -0,0 +1,18 @@
+package com.rentconnect.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// The authenticated caller as a handler argument, resolved by CurrentUserArgumentResolver.
+// Declare it as Long (the id), UserDetailsImpl (the principal) or User. A User is a lazy
+// reference: it costs no query when it is only used as a foreign key or a query parameter,
+// and is loaded the first time anything other than its id is read. Null for anonymous
+// requests, which @PreAuthorize rejects before the handler runs.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
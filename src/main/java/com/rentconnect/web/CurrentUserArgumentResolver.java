@@ -0,0 +1,47 @@
+package com.rentconnect.web;
+
+import com.rentconnect.model.User;
+import com.rentconnect.repository.UserRepository;
+import com.rentconnect.security.services.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Class<?> type = parameter.getParameterType();
+        if (type != Long.class && type != UserDetailsImpl.class && type != User.class) {
+            throw new IllegalStateException("@CurrentUser is not supported on " + type.getName());
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl userDetails)) {
+            return null;
+        }
+        if (type == UserDetailsImpl.class) {
+            return userDetails;
+        }
+        if (type == Long.class) {
+            return userDetails.getId();
+        }
+        // A proxy holding only the id; no SELECT unless the handler reads the user
+        return userRepository.getReferenceById(userDetails.getId());
+    }
+}
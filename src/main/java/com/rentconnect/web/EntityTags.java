@@ -0,0 +1,38 @@
+package com.rentconnect.web;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Validators for conditional GETs. The ETag is built from the id and the updatedAt of every
+// row the representation embeds (e.g. a listing and its owner), so it changes whenever the
+// serialized payload can change.
+public final class EntityTags {
+    private EntityTags() {
+    }
+
+    // Null when any timestamp is missing (legacy rows): those responses are sent without validators
+    public static String etag(Long id, LocalDateTime... versions) {
+        if (id == null || Arrays.stream(versions).anyMatch(Objects::isNull)) {
+            return null;
+        }
+        StringBuilder tag = new StringBuilder("\"").append(id);
+        for (LocalDateTime version : versions) {
+            tag.append('-').append(toEpochMilli(version));
+        }
+        return tag.append('"').toString();
+    }
+
+    public static long lastModified(LocalDateTime... versions) {
+        return Arrays.stream(versions)
+                .filter(Objects::nonNull)
+                .mapToLong(EntityTags::toEpochMilli)
+                .max()
+                .orElse(-1);
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,75 @@
+-- One-off conversion of "messages" into a table range-partitioned by month on created_at.
+-- Run it by hand in a maintenance window (psql -f partition-messages.sql) with the
+-- application stopped. It is not part of schema.sql because it rewrites the whole table.
+-- Afterwards MessagePartitionManager keeps partitions created ahead of time and, when
+-- rentconnect.messages.partitions.retentionMonths is set, detaches old ones into the
+-- "archive" schema. Partition names (messages_pYYYY_MM) must match what it generates.
+--
+-- Postgres requires the partition key in every unique constraint, so the primary key
+-- becomes (id, created_at). Identity columns on partitioned tables need Postgres 17, so ids
+-- come from a plain sequence default instead, continuing where the old identity stopped.
+
+BEGIN;
+
+LOCK TABLE messages IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+ALTER TABLE messages_unpartitioned RENAME CONSTRAINT messages_pkey TO messages_unpartitioned_pkey;
+ALTER INDEX IF EXISTS idx_messages_thread RENAME TO idx_messages_unpartitioned_thread;
+ALTER INDEX IF EXISTS idx_messages_recipient RENAME TO idx_messages_unpartitioned_recipient;
+ALTER INDEX IF EXISTS idx_messages_sender RENAME TO idx_messages_unpartitioned_sender;
+
+-- Dropping the identity drops its sequence (messages_id_seq); a serial column keeps its own
+ALTER TABLE messages_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS messages_id_seq AS bigint;
+
+CREATE TABLE messages (
+    LIKE messages_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE
+) PARTITION BY RANGE (created_at);
+
+ALTER TABLE messages ALTER COLUMN id SET DEFAULT nextval('messages_id_seq');
+ALTER SEQUENCE messages_id_seq OWNED BY messages.id;
+
+ALTER TABLE messages ADD CONSTRAINT messages_pkey PRIMARY KEY (id, created_at);
+
+-- Catches rows outside every monthly range so an insert never fails for lack of a partition
+CREATE TABLE messages_default PARTITION OF messages DEFAULT;
+
+-- Monthly partitions from the oldest message to three months ahead
+DO $$
+DECLARE
+    month date := date_trunc('month', coalesce((SELECT min(created_at) FROM messages_unpartitioned), now()));
+    last_month date := date_trunc('month', now() + interval '3 months');
+BEGIN
+    WHILE month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                       'messages_p' || to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    END LOOP;
+END
+$$;
+
+INSERT INTO messages SELECT * FROM messages_unpartitioned;
+
+SELECT setval('messages_id_seq', coalesce((SELECT max(id) FROM messages), 0) + 1, false);
+
+-- Same foreign keys as before (to users and listings), under the same names. Hibernate's
+-- schema update does not see foreign keys on a partitioned table, so each start logs an
+-- "already exists" warning for them; the DDL it attempts is rejected and nothing changes.
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint
+              WHERE conrelid = 'messages_unpartitioned'::regclass AND contype = 'f' LOOP
+        EXECUTE format('ALTER TABLE messages_unpartitioned DROP CONSTRAINT %I', fk.conname);
+        EXECUTE format('ALTER TABLE messages ADD CONSTRAINT %I %s', fk.conname, fk.definition);
+    END LOOP;
+END
+$$;
+
+COMMIT;
+
+-- schema.sql recreates the idx_messages_* indexes on the new table at the
+-- next start. Once the application is verified against the new table:
+--   DROP TABLE messages_unpartitioned;
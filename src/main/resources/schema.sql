@@ -0,0 +1,123 @@
+-- Runs after Hibernate has created/updated the tables (spring.jpa.defer-datasource-initialization).
+-- Every statement must be idempotent.
+
+-- Full-text search over active listings; the expression must match ListingRepository.SEARCH_VECTOR
+CREATE INDEX IF NOT EXISTS idx_listings_search_vector ON listings USING GIN (
+    (setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+     setweight(to_tsvector('english', coalesce(description, '')), 'B'))
+) WHERE is_active = true;
+
+-- Backfill rating sums for rows created before ratings were stored as sum + count
+UPDATE listings SET rating_sum = round(coalesce(rating, 0) * coalesce(reviews_count, 0)) WHERE rating_sum IS NULL;
+UPDATE users SET rating_sum = round(coalesce(rating, 0) * coalesce(reviews_count, 0)) WHERE rating_sum IS NULL;
+
+-- Slug suffix lookups (ListingRepository.findMaxSlugSuffix) range-scan by byte order, which the
+-- unique slug index only matches when the database collation happens to be C
+CREATE INDEX IF NOT EXISTS idx_listings_slug_c ON listings (slug COLLATE "C");
+
+-- Listing images gained an order column (Listing.images @OrderColumn). Hibernate cannot add it
+-- NOT NULL to a table with rows, so add it here, number legacy images in physical order (the
+-- order they used to load in), then enforce NOT NULL and the (listing_id, image_order) key that
+-- Hibernate creates on new tables and the cover image query reads. Skipped once NOT NULL.
+ALTER TABLE listing_images ADD COLUMN IF NOT EXISTS image_order integer;
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'listing_images'
+               AND column_name = 'image_order' AND is_nullable = 'YES') THEN
+        UPDATE listing_images li SET image_order = o.position
+        FROM (SELECT ctid AS row_id, image_order,
+                     coalesce(max(image_order) OVER (PARTITION BY listing_id), -1)
+                         + row_number() OVER (PARTITION BY listing_id, image_order IS NULL ORDER BY ctid) AS position
+              FROM listing_images) o
+        WHERE o.image_order IS NULL AND li.ctid = o.row_id;
+        ALTER TABLE listing_images ALTER COLUMN image_order SET NOT NULL;
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'listing_images'::regclass AND contype = 'p') THEN
+            ALTER TABLE listing_images ADD PRIMARY KEY (listing_id, image_order);
+        END IF;
+    END IF;
+END
+$$;
+
+-- Durable guard against double-booking: blocking rentals of a listing may not overlap.
+-- Exclusion constraints cannot be added NOT VALID, so startup fails while legacy rows overlap.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS btree_gist;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'rentals_no_overlap') THEN
+        ALTER TABLE rentals ADD CONSTRAINT rentals_no_overlap EXCLUDE USING gist (
+            listing_id WITH =,
+            daterange(start_date, end_date, '[]') WITH &&
+        ) WHERE (status IN ('PENDING', 'CONFIRMED', 'ACTIVE'));
+    END IF;
+EXCEPTION
+    WHEN exclusion_violation THEN
+        RAISE EXCEPTION 'rentals_no_overlap cannot be created: %', SQLERRM
+            USING HINT = 'Cancel or reschedule the overlapping PENDING/CONFIRMED/ACTIVE rentals, then restart';
+END
+$$;
+
+-- BookedDaysIndex.sync polls rentals by updated_at
+CREATE INDEX IF NOT EXISTS idx_rentals_updated_at ON rentals (updated_at);
+
+-- Backfill unread message counters for users created before the column existed
+UPDATE users SET unread_messages = (
+    SELECT COUNT(*) FROM messages m WHERE m.recipient_id = users.id AND m.is_read = false
+) WHERE unread_messages IS NULL;
+
+-- Conversation threads: the inbox scans participants by user, thread pages scan messages by thread
+CREATE INDEX IF NOT EXISTS idx_thread_participants_inbox ON thread_participants (user_id, last_message_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_thread ON messages (thread_id, created_at DESC, id DESC);
+
+-- Group messages sent before threads existed; the key format must match MessageThread.key.
+-- Only runs while unthreaded messages remain, and only touches the threads they land in.
+CREATE INDEX IF NOT EXISTS idx_messages_unthreaded ON messages (id) WHERE thread_id IS NULL;
+
+DO $$
+DECLARE
+    touched bigint[];
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM messages WHERE thread_id IS NULL) THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO message_threads (thread_key, user_low_id, user_high_id, listing_id, created_at)
+    SELECT DISTINCT
+        LEAST(sender_id, recipient_id) || ':' || GREATEST(sender_id, recipient_id) || ':' || COALESCE(listing_id::text, ''),
+        LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), listing_id, now()
+    FROM messages WHERE thread_id IS NULL
+    ON CONFLICT (thread_key) DO NOTHING;
+
+    WITH threaded AS (
+        UPDATE messages m SET thread_id = t.id FROM message_threads t
+        WHERE m.thread_id IS NULL AND t.thread_key =
+            LEAST(m.sender_id, m.recipient_id) || ':' || GREATEST(m.sender_id, m.recipient_id) || ':' || COALESCE(m.listing_id::text, '')
+        RETURNING m.thread_id
+    )
+    SELECT array_agg(DISTINCT thread_id) INTO touched FROM threaded;
+
+    INSERT INTO thread_participants (thread_id, user_id, unread_count)
+    SELECT id, user_low_id, 0 FROM message_threads WHERE id = ANY(touched)
+    UNION
+    SELECT id, user_high_id, 0 FROM message_threads WHERE id = ANY(touched)
+    ON CONFLICT (thread_id, user_id) DO NOTHING;
+
+    UPDATE message_threads t SET last_message_id = m.id, last_sender_id = m.sender_id,
+        last_message_preview = left(m.content, 200), last_message_at = m.created_at
+    FROM (SELECT DISTINCT ON (thread_id) id, thread_id, sender_id, content, created_at
+          FROM messages WHERE thread_id = ANY(touched) ORDER BY thread_id, id DESC) m
+    WHERE m.thread_id = t.id AND (t.last_message_id IS NULL OR t.last_message_id < m.id);
+
+    UPDATE thread_participants p SET last_message_at = t.last_message_at,
+        unread_count = (SELECT COUNT(*) FROM messages m
+                        WHERE m.thread_id = p.thread_id AND m.recipient_id = p.user_id AND m.is_read = false)
+    FROM message_threads t
+    WHERE t.id = p.thread_id AND p.thread_id = ANY(touched);
+END
+$$;
+
+-- Inbox listings by recipient and time; on a partitioned messages table this is created per partition
+CREATE INDEX IF NOT EXISTS idx_messages_recipient ON messages (recipient_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_sender ON messages (sender_id, created_at DESC);
+
+-- Token revocation sync polls by revoked_at
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
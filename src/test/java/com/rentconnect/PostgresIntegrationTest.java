@@ -0,0 +1,47 @@
+package com.rentconnect;
+
+import com.rentconnect.model.User;
+import com.rentconnect.security.jwt.JwtUtils;
+import com.rentconnect.security.services.UserDetailsImpl;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// Base for tests that need the real database: native queries, schema.sql and the
+// Postgres-only paths. One embedded server is shared by every test class in the run.
+public abstract class PostgresIntegrationTest {
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @Autowired
+    protected JwtUtils jwtUtils;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    protected String bearer(User user) {
+        UserDetailsImpl userDetails = new UserDetailsImpl(user.getId(), user.getEmail(), null,
+                user.getFirstName(), user.getLastName(), null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return "Bearer " + jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
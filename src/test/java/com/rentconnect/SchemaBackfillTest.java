@@ -0,0 +1,107 @@
+package com.rentconnect;
+
+import com.rentconnect.model.Message;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.UserRepository;
+import com.rentconnect.service.MessageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// schema.sql runs at every start; these re-run it against rows written the way messages
+// were stored before threads existed
+@SpringBootTest
+class SchemaBackfillTest extends PostgresIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void threadsLegacyMessagesAndAdvancesExistingSnapshots() {
+        User alice = userRepository.save(new User("backfill-a" + System.nanoTime() + "@example.com", "x", "Alice", "A"));
+        User bob = userRepository.save(new User("backfill-b" + System.nanoTime() + "@example.com", "x", "Bob", "B"));
+        for (int i = 1; i <= 3; i++) {
+            insertLegacy(alice, bob, "legacy " + i);
+        }
+
+        runSchema();
+
+        Long threadId = jdbcTemplate.queryForObject(
+                "SELECT DISTINCT thread_id FROM messages WHERE sender_id = ?", Long.class, alice.getId());
+        assertNotNull(threadId);
+        assertEquals(alice.getId() + ":" + bob.getId() + ":", threadKey(threadId));
+        assertEquals("legacy 3", preview(threadId));
+        assertEquals(3, participantUnread(threadId, bob));
+        assertEquals(0, participantUnread(threadId, alice));
+
+        // A message sent through the service joins the backfilled thread
+        Message reply = new Message();
+        reply.setSender(bob);
+        reply.setRecipient(alice);
+        reply.setSubject("s");
+        reply.setContent("reply");
+        assertEquals(threadId, messageService.send(reply).getThreadId());
+
+        // A legacy row written after that still lands in the same thread and moves its snapshot
+        insertLegacy(bob, alice, "late legacy");
+        runSchema();
+
+        assertEquals(0, unthreaded());
+        assertEquals("late legacy", preview(threadId));
+        assertEquals(2, participantUnread(threadId, alice));
+        assertEquals(3, participantUnread(threadId, bob));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM message_threads WHERE user_low_id = ? AND user_high_id = ?",
+                Integer.class, alice.getId(), bob.getId()));
+
+        // Nothing left to thread: a no-op
+        runSchema();
+        assertEquals("late legacy", preview(threadId));
+    }
+
+    private void insertLegacy(User sender, User recipient, String content) {
+        jdbcTemplate.update("INSERT INTO messages (sender_id, recipient_id, subject, content, is_read, created_at) " +
+                "VALUES (?, ?, 's', ?, false, now())", sender.getId(), recipient.getId(), content);
+    }
+
+    private void runSchema() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        // Same separator as spring.sql.init, so the DO blocks go through whole
+        populator.setSeparator("^^^ END OF SCRIPT ^^^");
+        populator.execute(dataSource);
+    }
+
+    private String threadKey(Long threadId) {
+        return jdbcTemplate.queryForObject("SELECT thread_key FROM message_threads WHERE id = ?", String.class, threadId);
+    }
+
+    private String preview(Long threadId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_message_preview FROM message_threads WHERE id = ?", String.class, threadId);
+    }
+
+    private int participantUnread(Long threadId, User user) {
+        return jdbcTemplate.queryForObject("SELECT unread_count FROM thread_participants WHERE thread_id = ? AND user_id = ?",
+                Integer.class, threadId, user.getId());
+    }
+
+    private int unthreaded() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM messages WHERE thread_id IS NULL", Integer.class);
+    }
+}
@@ -0,0 +1,88 @@
+package com.rentconnect.availability;
+
+import com.rentconnect.PostgresIntegrationTest;
+import com.rentconnect.model.Listing;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Rentals are written straight to the table, the way another instance's writes look from here
+@SpringBootTest
+class BookedDaysIndexTest extends PostgresIntegrationTest {
+    private static final LocalDate START = LocalDate.now().plusDays(10);
+    private static final LocalDate END = START.plusDays(2);
+
+    @Autowired
+    private BookedDaysIndex bookedDaysIndex;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User renter;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        long suffix = System.nanoTime();
+        User owner = userRepository.save(new User("index-owner" + suffix + "@example.com", "x", "Olga", "Owner"));
+        renter = userRepository.save(new User("index-renter" + suffix + "@example.com", "x", "Ruslan", "Renter"));
+        listing = listingRepository.save(Listing.builder()
+                .title("Indexed listing")
+                .pricePerDay(10.0)
+                .isActive(true)
+                .owner(owner)
+                .build());
+        bookedDaysIndex.sync();
+    }
+
+    @Test
+    void syncPicksUpBookingsAndCancellationsFromOtherInstances() {
+        Long rentalId = insertRental(LocalDateTime.now());
+        assertFalse(booked());
+
+        bookedDaysIndex.sync();
+        assertTrue(booked());
+
+        jdbcTemplate.update("UPDATE rentals SET status = 'CANCELLED', updated_at = ? WHERE id = ?",
+                LocalDateTime.now(), rentalId);
+        bookedDaysIndex.sync();
+        assertFalse(booked());
+    }
+
+    // Committed after the previous pass but stamped before it, within the overlap
+    @Test
+    void syncRereadsRowsStampedBeforeThePreviousPass() {
+        bookedDaysIndex.sync();
+        insertRental(LocalDateTime.now().minusMinutes(2));
+
+        bookedDaysIndex.sync();
+        assertTrue(booked());
+    }
+
+    private boolean booked() {
+        return bookedDaysIndex.bookedListingIds(START, END).contains(listing.getId());
+    }
+
+    private Long insertRental(LocalDateTime updatedAt) {
+        return jdbcTemplate.queryForObject("INSERT INTO rentals (listing_id, renter_id, start_date, end_date, " +
+                        "total_price, status, created_at, updated_at) VALUES (?, ?, ?, ?, 30, 'CONFIRMED', ?, ?) RETURNING id",
+                Long.class, listing.getId(), renter.getId(), START, END, updatedAt, updatedAt);
+    }
+}
@@ -0,0 +1,158 @@
+package com.rentconnect.availability;
+
+import com.rentconnect.exception.BookingConflictException;
+import com.rentconnect.model.Listing;
+import com.rentconnect.model.Rental;
+import com.rentconnect.model.RentalStatus;
+import com.rentconnect.repository.RentalRepository;
+import com.rentconnect.repository.projection.BookingInterval;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Concurrent overlapping bookings through the real lock stripes and listing calendars. The
+// repository is an in-memory stand-in without the exclusion constraint, so any overlap that
+// gets through is the locking's fault.
+class BookingServiceTest {
+    private static final int THREADS = 16;
+    private static final int BOOKINGS = 3000;
+    private static final int LISTINGS = 5;
+    private static final LocalDate FIRST_DAY = LocalDate.now().plusDays(1);
+
+    private final Queue<Rental> saved = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private BookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        RentalRepository rentalRepository = mock(RentalRepository.class);
+        when(rentalRepository.save(any(Rental.class))).thenAnswer(invocation -> {
+            Rental rental = invocation.getArgument(0);
+            rental.setId(ids.incrementAndGet());
+            saved.add(rental);
+            return rental;
+        });
+        when(rentalRepository.findBookings(anyLong(), any(), any())).thenAnswer(invocation -> {
+            Long listingId = invocation.getArgument(0);
+            return saved.stream()
+                    .filter(rental -> rental.getListing().getId().equals(listingId))
+                    .map(StoredBooking::new)
+                    .collect(Collectors.<BookingInterval>toList());
+        });
+
+        AvailabilityService availabilityService = new AvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "rentalRepository", rentalRepository);
+        ReflectionTestUtils.setField(availabilityService, "bookedDaysIndex", mock(BookedDaysIndex.class));
+        ReflectionTestUtils.setField(availabilityService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(availabilityService, "maximumSize", 100L);
+        ReflectionTestUtils.setField(availabilityService, "ttl", Duration.ofMinutes(5));
+        availabilityService.init();
+
+        bookingService = new BookingService();
+        ReflectionTestUtils.setField(bookingService, "rentalRepository", rentalRepository);
+        ReflectionTestUtils.setField(bookingService, "availabilityService", availabilityService);
+    }
+
+    @Test
+    void concurrentOverlappingBookingsNeverDoubleBook() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                LocalDate startDate = FIRST_DAY.plusDays(random.nextInt(120));
+                Rental rental = Rental.builder()
+                        .listing(Listing.builder().id((long) random.nextInt(LISTINGS) + 1).build())
+                        .startDate(startDate)
+                        .endDate(startDate.plusDays(random.nextInt(5)))
+                        .totalPrice(10.0)
+                        .status(RentalStatus.PENDING)
+                        .build();
+                try {
+                    start.await();
+                    bookingService.book(rental);
+                } catch (BookingConflictException e) {
+                    conflicts.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        assertEquals(BOOKINGS, saved.size() + conflicts.get());
+        assertTrue(saved.size() >= LISTINGS);
+
+        Map<Long, List<Rental>> byListing = saved.stream()
+                .collect(Collectors.groupingBy(rental -> rental.getListing().getId()));
+        int overlaps = 0;
+        for (List<Rental> rentals : byListing.values()) {
+            List<Rental> ordered = new ArrayList<>(rentals);
+            ordered.sort(Comparator.comparing(Rental::getStartDate));
+            for (int i = 1; i < ordered.size(); i++) {
+                if (!ordered.get(i).getStartDate().isAfter(ordered.get(i - 1).getEndDate())) {
+                    overlaps++;
+                }
+            }
+        }
+        assertEquals(0, overlaps);
+
+        System.out.printf("BookingServiceTest: %d bookings on %d threads in %.3f s (%.0f/s), %d accepted, %d conflicts%n",
+                BOOKINGS, THREADS, seconds, BOOKINGS / seconds, saved.size(), conflicts.get());
+    }
+
+    private record StoredBooking(Rental rental) implements BookingInterval {
+        public Long getId() {
+            return rental.getId();
+        }
+
+        public Long getListingId() {
+            return rental.getListing().getId();
+        }
+
+        public LocalDate getStartDate() {
+            return rental.getStartDate();
+        }
+
+        public LocalDate getEndDate() {
+            return rental.getEndDate();
+        }
+
+        public RentalStatus getStatus() {
+            return rental.getStatus();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.rentconnect.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rentconnect.PostgresIntegrationTest;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.UserRepository;
+import com.rentconnect.service.FeaturedListingsCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class CurrentUserStatementCountTest extends PostgresIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Rebuilds the feed on its executor after every listing change, which would land in the counts
+    @MockitoBean
+    private FeaturedListingsCache featuredListingsCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Statistics statistics;
+
+    private User owner;
+    private User renter;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long suffix = System.nanoTime();
+        owner = userRepository.save(new User("owner" + suffix + "@example.com", "x", "Olga", "Owner"));
+        renter = userRepository.save(new User("renter" + suffix + "@example.com", "x", "Ruslan", "Renter"));
+    }
+
+    // The caller comes from the token; a handler only reads the user row when it needs more than the id
+    @Test
+    void earlyReturnsNeverLoadTheCaller() throws Exception {
+        long listingId = createListing();
+
+        // Just the recipient lookup
+        perform(post("/api/messages").header("Authorization", bearer(owner))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"recipient\":{\"id\":-1},\"subject\":\"hi\",\"content\":\"c\"}"), 404);
+        assertCounts(1, 0);
+
+        // Just the listing lookup
+        perform(post("/api/rentals").header("Authorization", bearer(renter))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"listing\":{\"id\":-1},\"startDate\":\"2030-01-01\",\"endDate\":\"2030-01-03\"}"), 404);
+        assertCounts(1, 0);
+        perform(post("/api/rentals").header("Authorization", bearer(renter))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"listing\":{\"id\":" + listingId + "},\"startDate\":\"2030-01-05\",\"endDate\":\"2030-01-03\"}"), 400);
+        assertCounts(1, 0);
+        perform(post("/api/reviews").header("Authorization", bearer(renter))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"listing\":{\"id\":-1},\"rating\":5,\"comment\":\"good\"}"), 404);
+        assertCounts(1, 0);
+
+        // Booking conflict: the listing and the listing's bookings
+        book(listingId, "2030-01-01", "2030-01-03", 201);
+        book(listingId, "2030-01-02", "2030-01-04", 400);
+        assertCounts(2, 0);
+    }
+
+    // Responses that embed the caller load it once, when the reference is serialized
+    @Test
+    void createResponsesLoadTheCallerOnce() throws Exception {
+        createListing();
+        // Slug suffix, insert, and the owner for the response
+        assertCounts(3, 1);
+        long listingId = createListing();
+
+        JsonNode message = perform(post("/api/messages").header("Authorization", bearer(owner))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"recipient\":{\"id\":" + renter.getId() + "},\"subject\":\"hi\",\"content\":\"c\"}"), 201);
+        // Recipient, thread and participant upserts, the insert, snapshot and counter updates,
+        // the unread count, and the sender for the response
+        assertCounts(12, 1);
+        assertEquals("Olga", message.get("sender").get("firstName").asText());
+
+        JsonNode rental = book(listingId, "2030-02-01", "2030-02-03", 201);
+        // Listing, bookings, insert, the listing's collections and the renter for the response
+        assertCounts(6, 1);
+        assertEquals(renter.getEmail(), rental.get("renter").get("email").asText());
+
+        JsonNode review = perform(post("/api/reviews").header("Authorization", bearer(renter))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"listing\":{\"id\":" + listingId + "},\"rating\":5,\"comment\":\"good\"}"), 201);
+        // Listing, insert, the two rating updates, the listing's collections and the reviewer
+        assertCounts(7, 1);
+        assertEquals("Ruslan", review.get("user").get("firstName").asText());
+    }
+
+    @Test
+    void listsOnlyLoadUsersTheirRowsEmbed() throws Exception {
+        long listingId = createListing();
+        book(listingId, "2030-03-01", "2030-03-03", 201);
+        perform(post("/api/messages").header("Authorization", bearer(owner))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"recipient\":{\"id\":" + renter.getId() + "},\"subject\":\"hi\",\"content\":\"c\"}"), 201);
+
+        // Rentals, then the listing (with its owner), the renter and the listing's collections.
+        // The renter row is the caller, pulled in by the EAGER association rather than a lookup.
+        perform(get("/api/rentals/my-rentals").header("Authorization", bearer(renter)), 200);
+        assertCounts(5, 1);
+
+        // Same shape; the caller arrives as the listing's owner, so no lookup of its own
+        perform(get("/api/rentals/my-listings-rentals").header("Authorization", bearer(owner)), 200);
+        assertCounts(5, 1);
+
+        // The page, then the sender and the caller: EAGER as the recipient, and read for the
+        // unread count anyway. A short first page needs no count query.
+        perform(get("/api/messages").header("Authorization", bearer(renter)), 200);
+        assertCounts(3, 2);
+    }
+
+    private long createListing() throws Exception {
+        return perform(post("/api/listings").header("Authorization", bearer(owner))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Drill\",\"description\":\"d\",\"pricePerDay\":5,\"location\":\"x\",\"category\":\"tools\"}"), 201)
+                .get("id").asLong();
+    }
+
+    private JsonNode book(long listingId, String startDate, String endDate, int expectedStatus) throws Exception {
+        return perform(post("/api/rentals").header("Authorization", bearer(renter))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"listing\":{\"id\":" + listingId + "},\"startDate\":\"" + startDate
+                        + "\",\"endDate\":\"" + endDate + "\"}"), expectedStatus);
+    }
+
+    // userFetches counts users read by a statement of their own (a lookup or a proxy being
+    // initialized), as opposed to joined into another entity's row
+    private void assertCounts(long statements, long userFetches) {
+        assertEquals(statements, statistics.getPrepareStatementCount(), "statements");
+        assertEquals(userFetches, statistics.getEntityStatistics(User.class.getName()).getFetchCount(), "user fetches");
+    }
+
+    private JsonNode perform(RequestBuilder request, int expectedStatus) throws Exception {
+        statistics.clear();
+        String body = mockMvc.perform(request).andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+        return body.isEmpty() ? null : objectMapper.readTree(body);
+    }
+}
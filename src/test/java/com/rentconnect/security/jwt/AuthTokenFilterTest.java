@@ -0,0 +1,139 @@
+package com.rentconnect.security.jwt;
+
+import com.rentconnect.PostgresIntegrationTest;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.UserRepository;
+import com.rentconnect.security.services.UserDetailsCache;
+import com.rentconnect.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Jwts;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Per-request cost of authenticating a bearer token: tokens with uid/roles claims are resolved
+// from the claims alone, older tokens without them fall back to the user lookup.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AuthTokenFilterTest extends PostgresIntegrationTest {
+    private static final int WARMUP = 500;
+    private static final int REQUESTS = 2000;
+
+    @Autowired
+    private AuthTokenFilter authTokenFilter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User("filter" + System.nanoTime() + "@example.com", "x", "Fiona", "Filter"));
+    }
+
+    @Test
+    void claimsOnlyTokensSkipTheUserLookup() throws Exception {
+        String claimsToken = bearer(user);
+        String legacyToken = "Bearer " + legacyToken(user.getEmail());
+
+        // Correctness and statement counts for each path
+        statistics.clear();
+        assertEquals(user.getId(), authenticate(claimsToken).getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        userDetailsCache.evict(user.getEmail());
+        statistics.clear();
+        assertEquals(user.getId(), authenticate(legacyToken).getId());
+        // The user row and its roles
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(user.getId(), authenticate(legacyToken).getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        long[] claimsOnly = time(claimsToken, false);
+        long[] cachedFallback = time(legacyToken, false);
+        long[] databaseFallback = time(legacyToken, true);
+
+        System.out.printf("AuthTokenFilterTest: median/p99 per request over %d requests: claims only %.1f/%.1f us, " +
+                        "fallback (cached) %.1f/%.1f us, fallback (database) %.1f/%.1f us%n", REQUESTS,
+                percentile(claimsOnly, 50), percentile(claimsOnly, 99),
+                percentile(cachedFallback, 50), percentile(cachedFallback, 99),
+                percentile(databaseFallback, 50), percentile(databaseFallback, 99));
+        assertTrue(percentile(claimsOnly, 50) < percentile(databaseFallback, 50));
+    }
+
+    private long[] time(String token, boolean evict) throws Exception {
+        long[] nanos = new long[REQUESTS];
+        for (int i = -WARMUP; i < REQUESTS; i++) {
+            if (evict) {
+                userDetailsCache.evict(user.getEmail());
+            }
+            long began = System.nanoTime();
+            UserDetailsImpl principal = authenticate(token);
+            long elapsed = System.nanoTime() - began;
+            assertEquals(user.getId(), principal.getId());
+            if (i >= 0) {
+                nanos[i] = elapsed;
+            }
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private UserDetailsImpl authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/messages");
+        request.addHeader("Authorization", token);
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        SecurityContextHolder.clearContext();
+        return (UserDetailsImpl) authentication.getPrincipal();
+    }
+
+    // Shaped like tokens issued before the uid/roles claims existed
+    private String legacyToken(String email) {
+        SecretKey key = (SecretKey) ReflectionTestUtils.getField(jwtUtils, "key");
+        Date now = new Date();
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(email)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3_600_000))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1000.0;
+    }
+}
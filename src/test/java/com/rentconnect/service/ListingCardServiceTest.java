@@ -0,0 +1,97 @@
+package com.rentconnect.service;
+
+import com.rentconnect.PostgresIntegrationTest;
+import com.rentconnect.dto.response.ListingCardResponse;
+import com.rentconnect.model.Listing;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ListingCardServiceTest extends PostgresIntegrationTest {
+    @Autowired
+    private ListingCardService listingCardService;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = userRepository.save(new User("cards" + System.nanoTime() + "@example.com", "x", "Olga", "Owner"));
+    }
+
+    // Two statements per page whatever its size, and the cover is always the first image
+    @Test
+    void coverImagesAreTheFirstImageInTwoStatements() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // The extra images sort before the cover by URL
+            List<String> images = new ArrayList<>(List.of("z-cover-" + i));
+            for (int j = 0; j <= i % 4; j++) {
+                images.add("a-extra-" + i + "-" + j);
+            }
+            ids.add(save(images).getId());
+        }
+        Long withoutImages = save(new ArrayList<>()).getId();
+        ids.add(withoutImages);
+
+        for (int size : new int[]{1, 5, ids.size()}) {
+            statistics.clear();
+            List<ListingCardResponse> cards = listingCardService.findByIds(ids.subList(0, size));
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(size, cards.size());
+            for (int i = 0; i < Math.min(size, 20); i++) {
+                assertEquals(ids.get(i), cards.get(i).getId());
+                assertEquals("z-cover-" + i, cards.get(i).getCoverImage());
+            }
+        }
+        assertNull(listingCardService.findByIds(List.of(withoutImages)).get(0).getCoverImage());
+    }
+
+    @Test
+    void reorderingImagesChangesTheCover() {
+        Listing listing = save(new ArrayList<>(List.of("first", "second", "third")));
+        assertEquals("first", listingCardService.findByIds(List.of(listing.getId())).get(0).getCoverImage());
+
+        Listing reloaded = listingRepository.findById(listing.getId()).orElseThrow();
+        reloaded.setImages(new ArrayList<>(List.of("third", "first", "second")));
+        listingRepository.save(reloaded);
+
+        assertEquals("third", listingCardService.findByIds(List.of(listing.getId())).get(0).getCoverImage());
+    }
+
+    private Listing save(List<String> images) {
+        return listingRepository.save(Listing.builder()
+                .title("Card listing")
+                .pricePerDay(10.0)
+                .isActive(true)
+                .owner(owner)
+                .images(images)
+                .features(new ArrayList<>())
+                .build());
+    }
+}
@@ -0,0 +1,88 @@
+package com.rentconnect.service;
+
+import com.rentconnect.PostgresIntegrationTest;
+import com.rentconnect.model.Listing;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.ListingRepository;
+import com.rentconnect.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ListingSlugServiceTest extends PostgresIntegrationTest {
+    @Autowired
+    private ListingSlugService listingSlugService;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+    private String base;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("slugs" + System.nanoTime() + "@example.com", "x", "Olga", "Owner"));
+        base = "bike" + System.nanoTime();
+    }
+
+    @Test
+    void firstFreeSuffixCountsOnlyNumericSuffixesOfTheBase() {
+        assertEquals(0, listingSlugService.firstFreeSuffix(base));
+
+        save(base);
+        assertEquals(1, listingSlugService.firstFreeSuffix(base));
+
+        // Neighbours of the range that must not count: other bases and non-numeric suffixes
+        for (String slug : List.of(base + "-2", base + "-10", base + "-10-speed", base + "-x99",
+                base + "x-50", base + ".-60", base + "-", base.substring(0, base.length() - 1) + "-70")) {
+            save(slug);
+        }
+        assertEquals(11, listingSlugService.firstFreeSuffix(base));
+        assertEquals(base + "-11", listingSlugService.nextFreeSlug(base));
+    }
+
+    // The suffix range has to be an index range scan, not a LIKE filter over every slug
+    @Test
+    void suffixLookupUsesTheSlugIndex() throws NoSuchMethodException {
+        String query = ListingRepository.class.getMethod("findMaxSlugSuffix", String.class)
+                .getAnnotation(Query.class).value().replace(":base", "'" + base + "'");
+
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+        });
+
+        assertTrue(plan.contains("Index Cond: (((slug)::text >= '" + base + "-'::text)"), plan);
+        assertFalse(plan.contains("~~"), plan);
+    }
+
+    private void save(String slug) {
+        listingRepository.save(Listing.builder()
+                .title("Bike")
+                .slug(slug)
+                .pricePerDay(10.0)
+                .isActive(true)
+                .owner(owner)
+                .build());
+    }
+}
@@ -0,0 +1,128 @@
+package com.rentconnect.service;
+
+import com.rentconnect.PostgresIntegrationTest;
+import com.rentconnect.dto.request.MarkReadRequest;
+import com.rentconnect.model.Message;
+import com.rentconnect.model.User;
+import com.rentconnect.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The bulk operations run as single native statements (UPDATE/DELETE ... RETURNING inside a
+// CTE); the counters they feed must end up where a row-by-row recount puts them
+@SpringBootTest
+class MessageServiceTest extends PostgresIntegrationTest {
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        long suffix = System.nanoTime();
+        alice = userRepository.save(new User("alice" + suffix + "@example.com", "x", "Alice", "A"));
+        bob = userRepository.save(new User("bob" + suffix + "@example.com", "x", "Bob", "B"));
+        carol = userRepository.save(new User("carol" + suffix + "@example.com", "x", "Carol", "C"));
+    }
+
+    @Test
+    void markReadUpTo() {
+        Message a1 = send(alice, bob, "a1");
+        Message a2 = send(alice, bob, "a2");
+        send(alice, bob, "a3");
+        Message c1 = send(carol, bob, "c1");
+        send(carol, bob, "c2");
+
+        // Up to an id, in one thread
+        MarkReadRequest request = new MarkReadRequest();
+        request.setThreadId(a1.getThreadId());
+        request.setUpToId(a2.getId());
+        assertEquals(2, messageService.markReadUpTo(bob.getId(), request));
+        assertEquals(3, messageService.getUnreadCount(bob.getId()));
+        assertEquals(1, participantUnread(a1.getThreadId(), bob));
+        assertEquals(2, participantUnread(c1.getThreadId(), bob));
+
+        // Messages the caller sent are not theirs to mark
+        assertEquals(0, messageService.markReadUpTo(alice.getId(), new MarkReadRequest()));
+
+        // No filters: the rest of the inbox
+        assertEquals(3, messageService.markReadUpTo(bob.getId(), new MarkReadRequest()));
+        assertEquals(0, messageService.getUnreadCount(bob.getId()));
+        assertEquals(0, participantUnread(a1.getThreadId(), bob));
+        assertEquals(0, participantUnread(c1.getThreadId(), bob));
+        assertCountersMatchMessages(bob);
+    }
+
+    @Test
+    void deleteForUser() {
+        Message a1 = send(alice, bob, "a1");
+        send(alice, bob, "a2");
+        Message c1 = send(carol, bob, "c1");
+        Message c2 = send(carol, bob, "c2");
+        Message foreign = send(alice, carol, "not bob's");
+        MarkReadRequest readA1 = new MarkReadRequest();
+        readA1.setThreadId(a1.getThreadId());
+        readA1.setUpToId(a1.getId());
+        messageService.markReadUpTo(bob.getId(), readA1);
+
+        // One unread, one read, one Bob is not party to and one that does not exist
+        MessageService.BulkDeleteResult result =
+                messageService.deleteForUser(bob.getId(), List.of(c2.getId(), a1.getId(), foreign.getId(), -1L));
+
+        assertEquals(2, result.deleted());
+        assertEquals(Set.of(bob.getId()), result.recipientsWithUnreadChanges());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM messages WHERE id = ?", Integer.class, foreign.getId()));
+        assertEquals(2, messageService.getUnreadCount(bob.getId()));
+        assertEquals(1, participantUnread(c1.getThreadId(), bob));
+        // The thread whose latest message went falls back to the one before it
+        assertEquals("c1", preview(c1.getThreadId()));
+        // and one that only lost an older message keeps its snapshot
+        assertEquals("a2", preview(a1.getThreadId()));
+        assertCountersMatchMessages(bob);
+        assertCountersMatchMessages(carol);
+    }
+
+    private Message send(User sender, User recipient, String content) {
+        Message message = new Message();
+        message.setSender(sender);
+        message.setRecipient(recipient);
+        message.setSubject("s");
+        message.setContent(content);
+        return messageService.send(message);
+    }
+
+    private int participantUnread(Long threadId, User user) {
+        return jdbcTemplate.queryForObject("SELECT unread_count FROM thread_participants WHERE thread_id = ? AND user_id = ?",
+                Integer.class, threadId, user.getId());
+    }
+
+    private String preview(Long threadId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_message_preview FROM message_threads WHERE id = ?", String.class, threadId);
+    }
+
+    private void assertCountersMatchMessages(User user) {
+        assertEquals(jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM messages WHERE recipient_id = ? AND is_read = false", Integer.class, user.getId()),
+                messageService.getUnreadCount(user.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM thread_participants p WHERE p.user_id = ? " +
+                "AND p.unread_count <> (SELECT count(*) FROM messages m WHERE m.thread_id = p.thread_id " +
+                "AND m.recipient_id = p.user_id AND m.is_read = false)", Integer.class, user.getId()));
+    }
+}
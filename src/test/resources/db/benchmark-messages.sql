@@ -0,0 +1,77 @@
+-- Reproducible benchmark for the inbox query (MessageRepository.findUserMessagesSince, the
+-- default GET /api/messages). Run it by hand against a scratch database that already has the
+-- application schema (start the application against it once):
+--   psql -d rentconnect_bench -f benchmark-messages.sql
+-- Loads 10 000 users and 2 000 000 messages spread evenly over the last 12 months, then prints
+-- EXPLAIN (ANALYZE, BUFFERS) for the inbox page and its count query, bounded by the default
+-- 90 day window and unbounded for comparison. The plans are printed as NOTICEs so the user
+-- id is bound as a literal, as Hibernate binds it.
+--
+-- To compare layouts, run it, convert the table with db/partition-messages.sql (which then
+-- creates monthly partitions covering the benchmark rows) and run it again: every run
+-- replaces the previous run's messages. On the partitioned table the bounded plans should
+-- only touch the partitions from the window's first month on.
+--
+-- The messages are loaded without threads. Delete them (last statement, commented out)
+-- before pointing the application at this database again, or schema.sql threads them all
+-- on the next start.
+
+BEGIN;
+
+DELETE FROM messages WHERE subject = 'Benchmark';
+
+-- As in schema.sql, which only adds them to a freshly partitioned table on the next start
+CREATE INDEX IF NOT EXISTS idx_messages_recipient ON messages (recipient_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_sender ON messages (sender_id, created_at DESC);
+
+INSERT INTO users (email, password, first_name, last_name, created_at, unread_messages)
+SELECT 'bench' || n || '@example.com', 'x', 'Bench', 'User ' || n, now(), 0
+FROM generate_series(1, 10000) n
+ON CONFLICT (email) DO NOTHING;
+
+CREATE TEMP TABLE bench_users ON COMMIT DROP AS
+SELECT id, row_number() OVER (ORDER BY id) AS n FROM users WHERE email LIKE 'bench%@example.com';
+
+-- Every user sends and receives about 200 messages; 80% of them are read
+INSERT INTO messages (sender_id, recipient_id, subject, content, is_read, created_at)
+SELECT s.id, r.id, 'Benchmark', repeat('x', 200), random() < 0.8, now() - random() * interval '365 days'
+FROM generate_series(1, 2000000) g
+JOIN bench_users s ON s.n = 1 + g % 10000
+JOIN bench_users r ON r.n = 1 + (g::bigint * 7919 + 1) % 10000;
+
+COMMIT;
+
+ANALYZE users;
+ANALYZE messages;
+
+DO $$
+DECLARE
+    bench_user bigint := (SELECT id FROM users WHERE email = 'bench1@example.com');
+    since timestamp := now() - interval '90 days';
+    label text;
+    query text;
+    line text;
+BEGIN
+    FOR label, query IN VALUES
+        ('Inbox page, 90 day window',
+         format('SELECT m.* FROM messages m WHERE (m.sender_id = %s OR m.recipient_id = %s) ' ||
+                'AND m.created_at >= %L ORDER BY m.created_at DESC LIMIT 10', bench_user, bench_user, since)),
+        ('Inbox count, 90 day window',
+         format('SELECT count(m.id) FROM messages m WHERE (m.sender_id = %s OR m.recipient_id = %s) ' ||
+                'AND m.created_at >= %L', bench_user, bench_user, since)),
+        ('Inbox page, unbounded',
+         format('SELECT m.* FROM messages m WHERE m.sender_id = %s OR m.recipient_id = %s ' ||
+                'ORDER BY m.created_at DESC LIMIT 10', bench_user, bench_user)),
+        ('Inbox count, unbounded',
+         format('SELECT count(m.id) FROM messages m WHERE m.sender_id = %s OR m.recipient_id = %s',
+                bench_user, bench_user))
+    LOOP
+        RAISE NOTICE '%', label;
+        FOR line IN EXECUTE 'EXPLAIN (ANALYZE, BUFFERS) ' || query LOOP
+            RAISE NOTICE '  %', line;
+        END LOOP;
+    END LOOP;
+END
+$$;
+
+-- DELETE FROM messages WHERE subject = 'Benchmark';